@@ -0,0 +1,108 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures tracking a nest of injections for cycle detection: the InjectionStack against the
+ * ThreadLocal HashSet that AbstractInjectionStrategy used before it. Lives in the Hypo package 
+ * because InjectionStack is package-private.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class InjectionStackBenchmark
+{
+   private static final Class<?>[] CLASSES = { String.class, Integer.class, Long.class, Double.class, 
+      Float.class, Short.class, Byte.class, Character.class, Boolean.class, Object.class, 
+      StringBuilder.class, Thread.class, Runnable.class, Number.class, Class.class, Void.class };
+   
+   @Param( { "1", "4", "16" } )
+   public int depth;
+   
+   private ThreadLocal<Set<Class<?>>> cycleDetect = new ThreadLocal<Set<Class<?>>>();
+   
+   @Setup( Level.Trial )
+   public void setUp()
+   {
+      cycleDetect.set( new HashSet<Class<?>>() );
+   }
+   
+   @Benchmark
+   public int injectionStack()
+   {
+      return pushStack( 0 );
+   }
+   
+   @Benchmark
+   public int threadLocalHashSet()
+   {
+      return pushSet( 0 );
+   }
+   
+   private int pushStack( int level )
+   {
+      if ( level == depth )
+         return level;
+      InjectionStack stack = InjectionStack.current();
+      stack.push( CLASSES[ level ], InjectionStack.DEFAULT_MAX_DEPTH );
+      try
+      {
+         return pushStack( level + 1 );
+      }
+      finally
+      {
+         stack.pop();
+      }
+   }
+   
+   private int pushSet( int level )
+   {
+      if ( level == depth )
+         return level;
+      Class<?> clazz = CLASSES[ level ];
+      Set<Class<?>> inProgress = cycleDetect.get();
+      if ( !inProgress.add( clazz ) )
+         throw new IllegalStateException( "Cyclic dependency detected on attempt to inject an instance of " + clazz );
+      try
+      {
+         return pushSet( level + 1 );
+      }
+      finally
+      {
+         cycleDetect.get().remove( clazz );
+      }
+   }
+}
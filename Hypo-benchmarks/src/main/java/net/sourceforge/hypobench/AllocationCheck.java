@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypobench;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sourceforge.hypo.DI;
+import net.sourceforge.hypo.DependencyInjector;
+import net.sourceforge.hypo.inject.AnnotationInjectionStrategy;
+import net.sourceforge.hypo.inject.CompositeInjectionStrategy;
+import net.sourceforge.hypo.inject.InjectionStrategy;
+import net.sourceforge.hypo.inject.dependency.DefaultDependencyFactory;
+import net.sourceforge.hypo.inject.dependency.Dependency;
+import net.sourceforge.hypo.inject.resolver.CompositeDependencyResolver;
+import net.sourceforge.hypo.inject.resolver.DependencyResolver;
+import net.sourceforge.hypo.inject.resolver.RegExNewInstanceResolver;
+import net.sourceforge.hypo.inject.resolver.SimpleTypeMappingResolver;
+import net.sourceforge.hypobench.model.InjectableService;
+
+/**
+ * Checks that re-injecting an object whose class already has a cached InjectionPlan allocates
+ * nothing, using the per-thread allocated bytes counter of the HotSpot ThreadMXBean. Each path
+ * is run until it has been compiled, and then measured; any path that allocates on average a 
+ * byte or more per injection fails the check. Exits with status 1 on failure, so that it can 
+ * gate a build (mvn verify runs it).
+ * 
+ *    java -cp target/benchmarks.jar net.sourceforge.hypobench.AllocationCheck
+ */
+public final class AllocationCheck
+{
+   private static final int WARM_UP_ITERATIONS = 200000;
+   private static final int MEASURED_ITERATIONS = 1000000;
+   
+   private AllocationCheck()
+   {
+   }
+   
+   public static void main( String[] args ) throws Exception
+   {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      if ( !threads.isThreadAllocatedMemorySupported() )
+      {
+         System.out.println( "Per-thread allocation counters are not supported by this JVM; nothing checked." );
+         return;
+      }
+      threads.setThreadAllocatedMemoryEnabled( true );
+      
+      List<String> failures = new ArrayList<String>();
+      for ( Path path : createPaths() )
+      {
+         for ( int i = 0; i < WARM_UP_ITERATIONS; i++ )
+            path.run();
+         
+         long threadId = Thread.currentThread().getId();
+         long before = threads.getThreadAllocatedBytes( threadId );
+         for ( int i = 0; i < MEASURED_ITERATIONS; i++ )
+            path.run();
+         long allocated = threads.getThreadAllocatedBytes( threadId ) - before;
+         
+         double perOperation = (double) allocated / MEASURED_ITERATIONS;
+         System.out.println( String.format( "%-32s %10d bytes in %d injections (%.3f bytes/op)", 
+                  path.name, allocated, MEASURED_ITERATIONS, perOperation ) );
+         if ( perOperation >= 1.0 )
+            failures.add( path.name );
+      }
+      
+      if ( !failures.isEmpty() )
+      {
+         System.out.println( "Steady-state injection allocated memory on: " + failures );
+         System.exit( 1 );
+      }
+   }
+   
+   private static List<Path> createPaths() throws Exception
+   {
+      final InjectableService target = new InjectableService();
+      final Dependency dependency = new DefaultDependencyFactory().createDependency( 
+               InjectableService.class.getDeclaredField( "repository" ), "repository" );
+      
+      final AnnotationInjectionStrategy strategy = Fixtures.createStrategy( true );
+      
+      CompositeDependencyResolver routing = new CompositeDependencyResolver( Arrays.<DependencyResolver>asList( 
+               new SimpleTypeMappingResolver(), new SimpleTypeMappingResolver(), Fixtures.createResolver() ) );
+      routing.setRouting( true );
+      final AnnotationInjectionStrategy routed = new AnnotationInjectionStrategy();
+      routed.setDependencyResolver( routing );
+      
+      final CompositeInjectionStrategy composite = new CompositeInjectionStrategy( 
+               Arrays.<InjectionStrategy>asList( Fixtures.createStrategy( true ), Fixtures.createStrategy( true ) ) );
+      
+      final DependencyResolver regExSingleton = new RegExNewInstanceResolver( 
+               "net\\.sourceforge\\.hypobench\\.model\\.Repository=!net.sourceforge.hypobench.model.SimpleRepository" );
+      
+      DI.initializeStandardDependencyInjection( Fixtures.createStrategy( true ) );
+      final DependencyInjector injector = DI.getCurrentlyRunningDependencyInjector();
+      
+      return Arrays.asList( 
+         new Path( "AnnotationInjectionStrategy" )
+         {
+            void run()
+            {
+               strategy.performInjection( target );
+            }
+         },
+         new Path( "routed CompositeResolver" )
+         {
+            void run()
+            {
+               routed.performInjection( target );
+            }
+         },
+         new Path( "CompositeInjectionStrategy" )
+         {
+            void run()
+            {
+               composite.performInjection( target );
+            }
+         },
+         new Path( "RegExNewInstance singleton" )
+         {
+            void run()
+            {
+               regExSingleton.resolve( dependency, target );
+            }
+         },
+         new Path( "DependencyInjector.inject" )
+         {
+            void run()
+            {
+               injector.inject( target );
+            }
+         } );
+   }
+   
+   /**
+    * A named injection path to measure
+    */
+   private abstract static class Path
+   {
+      final String name;
+      
+      Path( String name )
+      {
+         this.name = name;
+      }
+      
+      abstract void run();
+   }
+}
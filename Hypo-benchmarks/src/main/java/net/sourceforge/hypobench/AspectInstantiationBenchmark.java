@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypobench;
+
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.hypo.DI;
+import net.sourceforge.hypo.DependencyInjector;
+import net.sourceforge.hypobench.model.InjectableService;
+import net.sourceforge.hypobench.model.Level5;
+import net.sourceforge.hypobench.model.NonInjectableService;
+import net.sourceforge.hypobench.model.PlainService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of "new" on woven classes while the DependencyInjectionAspect is running,
+ * including the overhead the aspect adds to classes that have no dependencies at all, against
+ * a hand-wired constructor.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class AspectInstantiationBenchmark
+{
+   @Param( { "false", "true" } )
+   public boolean coalesce;
+   
+   private DependencyInjector injector;
+   
+   @Setup( Level.Trial )
+   public void start()
+   {
+      DI.initializeStandardDependencyInjection( Fixtures.createStrategy( true ) );
+      injector = DI.getCurrentlyRunningDependencyInjector();
+      injector.stop();
+      injector.setCoalesceInjection( coalesce );
+      injector.ready();
+   }
+   
+   @TearDown( Level.Trial )
+   public void stop()
+   {
+      injector.stop();
+   }
+   
+   @Benchmark
+   public PlainService baselineConstructor()
+   {
+      return new PlainService( Fixtures.REPOSITORY, Fixtures.CLOCK );
+   }
+   
+   @Benchmark
+   public InjectableService newInjectable()
+   {
+      return new InjectableService();
+   }
+   
+   @Benchmark
+   public NonInjectableService newNonInjectable()
+   {
+      return new NonInjectableService();
+   }
+   
+   @Benchmark
+   public Level5 newFiveLevelHierarchy()
+   {
+      return new Level5();
+   }
+}
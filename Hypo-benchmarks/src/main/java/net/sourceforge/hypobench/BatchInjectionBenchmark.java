@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypobench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.hypo.inject.AnnotationInjectionStrategy;
+import net.sourceforge.hypobench.model.InjectableService;
+import net.sourceforge.hypobench.model.Level5;
+import net.sourceforge.hypobench.model.NonInjectableService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures injecting a batch of pre-built objects of a few classes with performBatchInjection(),
+ * serially and in parallel, against calling performInjection() for each object in turn.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class BatchInjectionBenchmark
+{
+   @Param( { "1000", "100000" } )
+   public int batchSize;
+   
+   private AnnotationInjectionStrategy serial;
+   private AnnotationInjectionStrategy parallel;
+   private List<Object> batch;
+   
+   @Setup( Level.Trial )
+   public void setUp()
+   {
+      serial = Fixtures.createStrategy( true );
+      parallel = Fixtures.createStrategy( true );
+      parallel.setParallelBatchThreshold( 1024 );
+      
+      batch = new ArrayList<Object>( batchSize );
+      for ( int i = 0; i < batchSize; i++ )
+      {
+         switch ( i % 3 )
+         {
+            case 0: batch.add( new InjectableService() ); break;
+            case 1: batch.add( new Level5() ); break;
+            default: batch.add( new NonInjectableService() ); break;
+         }
+      }
+   }
+   
+   @Benchmark
+   public int oneAtATime()
+   {
+      int injected = 0;
+      for ( Object obj : batch )
+      {
+         if ( serial.performInjection( obj ) )
+            injected++;
+      }
+      return injected;
+   }
+   
+   @Benchmark
+   public int batch()
+   {
+      return serial.performBatchInjection( batch );
+   }
+   
+   @Benchmark
+   public int parallelBatch()
+   {
+      return parallel.performBatchInjection( batch );
+   }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypobench;
+
+import net.sourceforge.hypo.inject.AnnotationInjectionStrategy;
+import net.sourceforge.hypo.inject.resolver.SimpleTypeMappingResolver;
+import net.sourceforge.hypobench.model.Clock;
+import net.sourceforge.hypobench.model.FixedClock;
+import net.sourceforge.hypobench.model.Repository;
+import net.sourceforge.hypobench.model.SimpleRepository;
+
+/**
+ * Shared set-up for the benchmarks
+ */
+final class Fixtures
+{
+   static final Repository REPOSITORY = new SimpleRepository();
+   static final Clock CLOCK = new FixedClock();
+   
+   private Fixtures()
+   {
+   }
+   
+   /**
+    * @return a resolver that binds the model dependency types to shared instances
+    */
+   static SimpleTypeMappingResolver createResolver()
+   {
+      SimpleTypeMappingResolver resolver = new SimpleTypeMappingResolver();
+      resolver.bind( Repository.class, REPOSITORY );
+      resolver.bind( Clock.class, CLOCK );
+      return resolver;
+   }
+   
+   /**
+    * @param classCaching whether the strategy should cache the dependencies of each class
+    * @return an annotation strategy over the resolver from createResolver()
+    */
+   static AnnotationInjectionStrategy createStrategy( boolean classCaching )
+   {
+      AnnotationInjectionStrategy strategy = new AnnotationInjectionStrategy();
+      strategy.setDependencyResolver( createResolver() );
+      strategy.setClassCaching( classCaching );
+      return strategy;
+   }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypobench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.hypo.inject.dependency.DefaultDependencyFactory;
+import net.sourceforge.hypo.inject.dependency.Dependency;
+import net.sourceforge.hypo.inject.resolver.CompositeDependencyResolver;
+import net.sourceforge.hypo.inject.resolver.DefaultTypeSpringBeanResolver;
+import net.sourceforge.hypo.inject.resolver.DependencyResolver;
+import net.sourceforge.hypo.inject.resolver.NamedSpringBeanResolver;
+import net.sourceforge.hypo.inject.resolver.RegExNewInstanceResolver;
+import net.sourceforge.hypo.inject.resolver.RegExSpringBeanResolver;
+import net.sourceforge.hypo.inject.resolver.SimpleTypeMappingResolver;
+import net.sourceforge.hypobench.model.InjectableService;
+import net.sourceforge.hypobench.model.SimpleRepository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * Measures a single resolve-and-inject of one field dependency through each resolver, against
+ * assigning the value directly. The Spring resolvers run against an in-memory context holding 
+ * one singleton bean. The composite benchmarks resolve through a CompositeDependencyResolver
+ * whose fifth resolver is the first that can resolve the dependency, with and without routing.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class ResolverBenchmark
+{
+   private static final String REPOSITORY_PATTERN = "net\\.sourceforge\\.hypobench\\.model\\.Repository";
+   
+   private Dependency dependency;
+   private InjectableService target;
+   private GenericApplicationContext context;
+   
+   private DependencyResolver simpleTypeMapping;
+   private DependencyResolver regExNewInstance;
+   private DependencyResolver regExNewInstanceSingleton;
+   private DependencyResolver defaultTypeSpringBean;
+   private DependencyResolver namedSpringBean;
+   private DependencyResolver regExSpringBean;
+   private DependencyResolver compositeRouted;
+   private DependencyResolver compositeUnrouted;
+   
+   @Setup( Level.Trial )
+   public void setUp() throws Exception
+   {
+      dependency = new DefaultDependencyFactory().createDependency( 
+               InjectableService.class.getDeclaredField( "repository" ), "repository" );
+      target = new InjectableService();
+      
+      simpleTypeMapping = Fixtures.createResolver();
+      regExNewInstance = new RegExNewInstanceResolver( 
+               REPOSITORY_PATTERN + "=net.sourceforge.hypobench.model.SimpleRepository" );
+      regExNewInstanceSingleton = new RegExNewInstanceResolver( 
+               REPOSITORY_PATTERN + "=!net.sourceforge.hypobench.model.SimpleRepository" );
+      
+      context = new GenericApplicationContext();
+      context.registerBean( "repository", SimpleRepository.class );
+      context.refresh();
+      
+      DefaultTypeSpringBeanResolver defaultType = new DefaultTypeSpringBeanResolver();
+      defaultType.setApplicationContext( context );
+      defaultTypeSpringBean = defaultType;
+      
+      NamedSpringBeanResolver named = new NamedSpringBeanResolver();
+      named.setApplicationContext( context );
+      namedSpringBean = named;
+      
+      RegExSpringBeanResolver regEx = new RegExSpringBeanResolver();
+      regEx.setApplicationContext( context );
+      regEx.setPatternMappings( Collections.singletonList( REPOSITORY_PATTERN + "=repository" ) );
+      regExSpringBean = regEx;
+      
+      List<DependencyResolver> chain = new ArrayList<DependencyResolver>();
+      for ( int i = 0; i < 4; i++ )
+         chain.add( new SimpleTypeMappingResolver() );
+      chain.add( regExSpringBean );
+      CompositeDependencyResolver routed = new CompositeDependencyResolver( chain );
+      routed.setRouting( true );
+      compositeRouted = routed;
+      compositeUnrouted = new CompositeDependencyResolver( chain );
+      
+      for ( DependencyResolver resolver : Arrays.asList( simpleTypeMapping, regExNewInstance, 
+               regExNewInstanceSingleton, defaultTypeSpringBean, namedSpringBean, regExSpringBean,
+               compositeRouted, compositeUnrouted ) )
+      {
+         if ( !resolver.resolve( dependency, target ) )
+            throw new IllegalStateException( "Resolver " + resolver + " could not resolve " + dependency );
+      }
+   }
+   
+   @TearDown( Level.Trial )
+   public void tearDown()
+   {
+      context.close();
+   }
+   
+   @Benchmark
+   public InjectableService baselineAssignment()
+   {
+      target.setRepository( Fixtures.REPOSITORY );
+      return target;
+   }
+   
+   @Benchmark
+   public boolean simpleTypeMapping()
+   {
+      return simpleTypeMapping.resolve( dependency, target );
+   }
+   
+   @Benchmark
+   public boolean regExNewInstance()
+   {
+      return regExNewInstance.resolve( dependency, target );
+   }
+   
+   @Benchmark
+   public boolean regExNewInstanceSingleton()
+   {
+      return regExNewInstanceSingleton.resolve( dependency, target );
+   }
+   
+   @Benchmark
+   public boolean defaultTypeSpringBean()
+   {
+      return defaultTypeSpringBean.resolve( dependency, target );
+   }
+   
+   @Benchmark
+   public boolean namedSpringBean()
+   {
+      return namedSpringBean.resolve( dependency, target );
+   }
+   
+   @Benchmark
+   public boolean regExSpringBean()
+   {
+      return regExSpringBean.resolve( dependency, target );
+   }
+   
+   @Benchmark
+   public boolean compositeRouted()
+   {
+      return compositeRouted.resolve( dependency, target );
+   }
+   
+   @Benchmark
+   public boolean compositeUnrouted()
+   {
+      return compositeUnrouted.resolve( dependency, target );
+   }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypobench;
+
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.hypo.inject.AnnotationInjectionStrategy;
+import net.sourceforge.hypo.inject.InjectionPlan;
+import net.sourceforge.hypobench.model.InjectableService;
+import net.sourceforge.hypobench.model.Level1;
+import net.sourceforge.hypobench.model.Level3;
+import net.sourceforge.hypobench.model.Level5;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures throughput of the shared caches in a single strategy as the number of threads grows.
+ * Run main() to repeat the suite at 1, 2, 4, ... threads up to the number of available processors;
+ * run through org.openjdk.jmh.Main it uses a single thread unless -t is given.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ScalingBenchmark
+{
+   private static final Class<?>[] CLASSES = { InjectableService.class, Level1.class, Level3.class, Level5.class };
+   
+   @State( Scope.Benchmark )
+   public static class SharedStrategy
+   {
+      AnnotationInjectionStrategy strategy;
+      
+      @Setup( Level.Trial )
+      public void setUp()
+      {
+         strategy = Fixtures.createStrategy( true );
+      }
+   }
+   
+   @State( Scope.Thread )
+   public static class Targets
+   {
+      InjectableService service;
+      Level5 deep;
+      int next;
+      
+      @Setup( Level.Trial )
+      public void setUp()
+      {
+         service = new InjectableService();
+         deep = new Level5();
+      }
+   }
+   
+   @Benchmark
+   public InjectableService baselineSetters( Targets targets )
+   {
+      targets.service.setRepository( Fixtures.REPOSITORY );
+      targets.service.setClock( Fixtures.CLOCK );
+      return targets.service;
+   }
+   
+   @Benchmark
+   public InjectableService inject( SharedStrategy shared, Targets targets )
+   {
+      shared.strategy.performInjection( targets.service );
+      return targets.service;
+   }
+   
+   @Benchmark
+   public Level5 injectFiveLevelHierarchy( SharedStrategy shared, Targets targets )
+   {
+      shared.strategy.performInjection( targets.deep );
+      return targets.deep;
+   }
+   
+   @Benchmark
+   public InjectionPlan planLookup( SharedStrategy shared, Targets targets )
+   {
+      Class<?> clazz = CLASSES[ targets.next++ & ( CLASSES.length - 1 ) ];
+      return shared.strategy.getInjectionPlan( clazz );
+   }
+   
+   public static void main( String[] args ) throws RunnerException
+   {
+      int processors = Runtime.getRuntime().availableProcessors();
+      for ( int threads = 1; ; threads = Math.min( threads * 2, processors ) )
+      {
+         Options options = new OptionsBuilder()
+                  .include( ScalingBenchmark.class.getSimpleName() )
+                  .threads( threads )
+                  .build();
+         new Runner( options ).run();
+         if ( threads == processors )
+            break;
+      }
+   }
+}
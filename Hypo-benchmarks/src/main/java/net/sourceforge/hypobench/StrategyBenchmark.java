@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypobench;
+
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.hypo.inject.AnnotationInjectionStrategy;
+import net.sourceforge.hypobench.model.InjectableService;
+import net.sourceforge.hypobench.model.Level5;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures InjectionStrategy.performInjection() on its own, with and without class caching and
+ * the injectors generated by InjectorProcessor, against calling the setters by hand. The aspect is not running, so each benchmark re-injects
+ * a pre-built target.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class StrategyBenchmark
+{
+   @Param( { "true", "false" } )
+   public boolean classCaching;
+   
+   @Param( { "true", "false" } )
+   public boolean generatedInjectors;
+   
+   private AnnotationInjectionStrategy strategy;
+   private InjectableService service;
+   private Level5 deep;
+   
+   @Setup( Level.Trial )
+   public void setUp()
+   {
+      strategy = Fixtures.createStrategy( classCaching );
+      strategy.setUseGeneratedInjectors( generatedInjectors );
+      service = new InjectableService();
+      deep = new Level5();
+   }
+   
+   @Benchmark
+   public InjectableService baselineSetters()
+   {
+      service.setRepository( Fixtures.REPOSITORY );
+      service.setClock( Fixtures.CLOCK );
+      return service;
+   }
+   
+   @Benchmark
+   public InjectableService injectByClass()
+   {
+      strategy.performInjection( service, InjectableService.class );
+      return service;
+   }
+   
+   @Benchmark
+   public InjectableService injectWholeObject()
+   {
+      strategy.performInjection( service );
+      return service;
+   }
+   
+   @Benchmark
+   public Level5 injectFiveLevelHierarchy()
+   {
+      strategy.performInjection( deep );
+      return deep;
+   }
+}
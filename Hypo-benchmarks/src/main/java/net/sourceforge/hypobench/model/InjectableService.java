@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypobench.model;
+
+import net.sourceforge.hypo.annotation.Dependency;
+
+/**
+ * A class with two annotated dependencies, one a field and one a setter
+ */
+public class InjectableService
+{
+   @Dependency( "repository" )
+   Repository repository;
+   
+   private Clock clock;
+   
+   @Dependency( "clock" )
+   public void setClock( Clock clock )
+   {
+      this.clock = clock;
+   }
+   
+   public void setRepository( Repository repository )
+   {
+      this.repository = repository;
+   }
+   
+   public Repository getRepository()
+   {
+      return repository;
+   }
+   
+   public Clock getClock()
+   {
+      return clock;
+   }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypobench.model;
+
+/**
+ * The hand-wired equivalent of InjectableService, used as the baseline
+ */
+public class PlainService
+{
+   private Repository repository;
+   private Clock clock;
+   
+   public PlainService( Repository repository, Clock clock )
+   {
+      this.repository = repository;
+      this.clock = clock;
+   }
+   
+   public Repository getRepository()
+   {
+      return repository;
+   }
+   
+   public Clock getClock()
+   {
+      return clock;
+   }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import net.sourceforge.hypo.annotation.Dependency;
+import net.sourceforge.hypo.inject.resolver.InjectionFactory;
+import net.sourceforge.hypo.inject.resolver.SimpleTypeMappingResolver;
+
+import org.junit.Test;
+
+/**
+ * Batch injection, which groups objects by class and may inject large groups in parallel
+ */
+public class BatchInjectionTest
+{
+   public static class Target
+   {
+      @Dependency
+      StringBuilder buffer;
+   }
+   
+   /**
+    * A thread-scoped instance must be that of the thread that asked for the batch, not that of
+    * whichever pool thread happened to inject each object
+    */
+   @Test
+   public void threadScopedBindingsAreInjectedOnTheCallingThread()
+   {
+      SimpleTypeMappingResolver resolver = new SimpleTypeMappingResolver();
+      resolver.bindThreadScoped( StringBuilder.class, new InjectionFactory<StringBuilder>()
+      {
+         public StringBuilder get( Object target, net.sourceforge.hypo.inject.dependency.Dependency dep )
+         {
+            return new StringBuilder( Thread.currentThread().getName() );
+         }
+      } );
+      AnnotationInjectionStrategy strategy = new AnnotationInjectionStrategy();
+      strategy.setDependencyResolver( resolver );
+      strategy.setParallelBatchThreshold( 1 );
+      ForkJoinPool pool = new ForkJoinPool( 4 );
+      strategy.setBatchPool( pool );
+      try
+      {
+         List<Target> targets = new ArrayList<Target>();
+         for ( int i = 0; i < 1000; i++ )
+            targets.add( new Target() );
+         assertEquals( targets.size(), strategy.performBatchInjection( targets ) );
+         
+         Target single = new Target();
+         strategy.performInjection( single );
+         for ( Target target: targets )
+            assertSame( single.buffer, target.buffer );
+      }
+      finally
+      {
+         pool.shutdown();
+      }
+   }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+
+import net.sourceforge.hypo.annotation.Dependency;
+import net.sourceforge.hypo.inject.resolver.InjectionFactory;
+import net.sourceforge.hypo.inject.resolver.SimpleTypeMappingResolver;
+
+import org.junit.Test;
+
+/**
+ * Cycle detection and the maximum injection depth, which are tracked on the InjectionStack
+ */
+public class InjectionStackTest
+{
+   public static class Base
+   {
+      @Dependency
+      Object helper;
+   }
+   
+   public static class A extends Base
+   {
+   }
+   
+   public static class B extends Base
+   {
+   }
+   
+   public static class Node
+   {
+      @Dependency
+      Node next;
+   }
+   
+   /**
+    * Injecting an instance of one subclass of Base inside the injection of another is not a 
+    * cycle, even though both are being injected at the Base level
+    */
+   @Test
+   public void siblingNestingIsNotACycle()
+   {
+      final AnnotationInjectionStrategy strategy = new AnnotationInjectionStrategy();
+      SimpleTypeMappingResolver resolver = new SimpleTypeMappingResolver();
+      resolver.bindAll( Collections.singletonMap( Object.class, new InjectionFactory<Object>()
+      {
+         public Object get( Object target, net.sourceforge.hypo.inject.dependency.Dependency dep )
+         {
+            if ( target instanceof B )
+               return "leaf";
+            B sibling = new B();
+            strategy.performInjection( sibling, Base.class );
+            strategy.performInjection( sibling, B.class );
+            return sibling;
+         }
+      } ) );
+      strategy.setDependencyResolver( resolver );
+      
+      for ( int i = 0; i < 2; i++ )
+      {
+         A a = new A();
+         assertTrue( strategy.performInjection( a, Base.class ) );
+         assertTrue( a.helper instanceof B );
+         assertEquals( "leaf", ( (B) a.helper ).helper );
+         
+         a = new A();
+         assertTrue( strategy.performInjection( a ) );
+         assertEquals( "leaf", ( (B) a.helper ).helper );
+      }
+   }
+   
+   @Test
+   public void cycleIsReportedWithItsPath()
+   {
+      final AnnotationInjectionStrategy strategy = new AnnotationInjectionStrategy();
+      SimpleTypeMappingResolver resolver = new SimpleTypeMappingResolver();
+      resolver.bindAll( Collections.singletonMap( Node.class, new InjectionFactory<Node>()
+      {
+         public Node get( Object target, net.sourceforge.hypo.inject.dependency.Dependency dep )
+         {
+            Node node = new Node();
+            strategy.performInjection( node );
+            return node;
+         }
+      } ) );
+      strategy.setDependencyResolver( resolver );
+      
+      // Twice, so that the second attempt uses the cached InjectionPlan
+      for ( int i = 0; i < 2; i++ )
+      {
+         try
+         {
+            strategy.performInjection( new Node() );
+            fail( "Cycle not detected" );
+         }
+         catch( IllegalStateException e )
+         {
+            String node = Node.class.getName();
+            assertTrue( e.getMessage(), e.getMessage().endsWith( node + " -> " + node ) );
+         }
+      }
+      
+      // The stack is left empty after the failure
+      strategy.setDependencyResolver( new SimpleTypeMappingResolver() );
+      try
+      {
+         strategy.performInjection( new Node() );
+         fail( "Expected the Dependency to be unresolved" );
+      }
+      catch( UnresolvedDependenciesException e )
+      {
+         assertNotNull( e.getMessage() );
+      }
+   }
+   
+   @Test
+   public void maximumDepthIsEnforced()
+   {
+      final AnnotationInjectionStrategy strategy = new AnnotationInjectionStrategy();
+      strategy.setMaxInjectionDepth( 1 );
+      SimpleTypeMappingResolver resolver = new SimpleTypeMappingResolver();
+      resolver.bindAll( Collections.singletonMap( Object.class, new InjectionFactory<Object>()
+      {
+         public Object get( Object target, net.sourceforge.hypo.inject.dependency.Dependency dep )
+         {
+            if ( target instanceof B )
+               return "leaf";
+            B nested = new B();
+            strategy.performInjection( nested );
+            return nested;
+         }
+      } ) );
+      strategy.setDependencyResolver( resolver );
+      try
+      {
+         strategy.performInjection( new A() );
+         fail( "Maximum depth not enforced" );
+      }
+      catch( IllegalStateException e )
+      {
+         assertTrue( e.getMessage(), e.getMessage().startsWith( "Maximum injection depth of 1 exceeded" ) );
+      }
+   }
+}
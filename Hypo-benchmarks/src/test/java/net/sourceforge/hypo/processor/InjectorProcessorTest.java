@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.hypo.annotation.Dependency;
+import net.sourceforge.hypo.inject.AnnotationInjectionStrategy;
+import net.sourceforge.hypo.inject.GeneratedInjector;
+import net.sourceforge.hypo.inject.dependency.GeneratedDependency;
+import net.sourceforge.hypo.inject.dependency.LazyDependency;
+import net.sourceforge.hypo.inject.resolver.SimpleTypeMappingResolver;
+import net.sourceforge.hypobench.model.InjectableService;
+import net.sourceforge.hypobench.model.Level5;
+
+import org.junit.Test;
+
+/**
+ * The injectors generated by InjectorProcessor when this module was compiled must be picked up
+ * by AnnotationInjectionStrategy, and must give the same InjectionPlan as reflection does
+ */
+public class InjectorProcessorTest
+{
+   public interface Service
+   {
+   }
+   
+   public static class Parent
+   {
+      @Dependency( "parentName" )
+      String name;
+      
+      @Dependency
+      int count;
+      
+      Runnable task;
+      
+      @Dependency
+      public void setTask( Runnable task )
+      {
+         this.task = task;
+      }
+   }
+   
+   public static class Child extends Parent
+   {
+      @Dependency( lazy = true )
+      Service service;
+      
+      Long id;
+      
+      @Dependency( "childId" )
+      void setId( Long id )
+      {
+         this.id = id;
+      }
+   }
+   
+   public static class Holder<T>
+   {
+      T value;
+      
+      @Dependency
+      public void setValue( T value )
+      {
+         this.value = value;
+      }
+   }
+   
+   /**
+    * Overrides a generic setter, so javac adds an annotated bridge method that must not 
+    * become a second Dependency
+    */
+   public static class StringHolder extends Holder<String>
+   {
+      @Dependency
+      public void setValue( String value )
+      {
+         super.setValue( value );
+      }
+   }
+   
+   private static final Class<?>[] CLASSES = { Parent.class, Child.class, Holder.class, StringHolder.class, InjectableService.class, Level5.class };
+   
+   @Test
+   public void injectorsAreGenerated() throws Exception
+   {
+      for ( Class<?> clazz: new Class<?>[] { Parent.class, Child.class, Holder.class, StringHolder.class, InjectableService.class } )
+      {
+         Class<?> injector = Class.forName( clazz.getName() + GeneratedInjector.CLASS_NAME_SUFFIX, false, clazz.getClassLoader() );
+         assertTrue( injector.getName(), GeneratedInjector.class.isAssignableFrom( injector ) );
+      }
+   }
+   
+   @Test
+   public void generatedPlanMatchesReflection()
+   {
+      AnnotationInjectionStrategy generated = createStrategy( true );
+      AnnotationInjectionStrategy reflective = createStrategy( false );
+      for ( Class<?> clazz: CLASSES )
+      {
+         List<net.sourceforge.hypo.inject.dependency.Dependency> expected = reflective.getInjectionPlan( clazz ).getDependencies();
+         List<net.sourceforge.hypo.inject.dependency.Dependency> actual = generated.getInjectionPlan( clazz ).getDependencies();
+         assertEquals( clazz.getName(), expected.size(), actual.size() );
+         for ( int i = 0; i < expected.size(); i++ )
+         {
+            net.sourceforge.hypo.inject.dependency.Dependency exp = expected.get( i );
+            net.sourceforge.hypo.inject.dependency.Dependency act = actual.get( i );
+            String where = clazz.getName() + " " + exp;
+            assertEquals( where, exp instanceof LazyDependency, act instanceof LazyDependency );
+            if ( act instanceof LazyDependency )
+            {
+               exp = ( (LazyDependency) exp ).getDependency();
+               act = ( (LazyDependency) act ).getDependency();
+            }
+            assertTrue( where + " was not generated: " + act, act instanceof GeneratedDependency );
+            assertEquals( where, exp.getMember(), act.getMember() );
+            assertEquals( where, exp.getType(), act.getType() );
+            assertEquals( where, exp.getAssociatedName(), act.getAssociatedName() );
+         }
+      }
+   }
+   
+   @Test
+   public void generatedInjectorInjectsLikeReflection()
+   {
+      Child generated = new Child();
+      Child reflective = new Child();
+      assertTrue( createStrategy( true ).performInjection( generated ) );
+      assertTrue( createStrategy( false ).performInjection( reflective ) );
+      for ( Child child: new Child[] { generated, reflective } )
+      {
+         assertEquals( "text", child.name );
+         assertEquals( 42, child.count );
+         assertSame( TASK, child.task );
+         assertEquals( Long.valueOf( 7L ), child.id );
+         assertNotNull( child.service );
+      }
+      
+      StringHolder holder = new StringHolder();
+      assertTrue( createStrategy( true ).performInjection( holder ) );
+      assertEquals( "text", holder.value );
+   }
+   
+   private static final Runnable TASK = new Runnable()
+   {
+      public void run()
+      {
+      }
+   };
+   
+   private static AnnotationInjectionStrategy createStrategy( boolean useGeneratedInjectors )
+   {
+      Map<Class<?>, Object> bindings = new HashMap<Class<?>, Object>();
+      bindings.put( String.class, "text" );
+      bindings.put( int.class, 42 );
+      bindings.put( Runnable.class, TASK );
+      bindings.put( Long.class, 7L );
+      bindings.put( Service.class, new Service()
+      {
+      } );
+      bindings.put( Object.class, "text" );
+      SimpleTypeMappingResolver resolver = new SimpleTypeMappingResolver();
+      resolver.bindAll( bindings );
+      
+      AnnotationInjectionStrategy strategy = new AnnotationInjectionStrategy();
+      strategy.setDependencyResolver( resolver );
+      strategy.setUseGeneratedInjectors( useGeneratedInjectors );
+      return strategy;
+   }
+}
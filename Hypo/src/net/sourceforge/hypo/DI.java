@@ -16,6 +16,7 @@
 package net.sourceforge.hypo;
 
 import java.lang.reflect.Method;
+import java.util.List;
 
 import net.sourceforge.hypo.inject.AbstractInjectionStrategy;
 import net.sourceforge.hypo.inject.AnnotationInjectionStrategy;
@@ -80,6 +81,21 @@ public final class DI
        initializeStandardDependencyInjection(strategy);
    }
    
+   /**
+    * As initializeSimpleAnnotationDependencyInjection( resolver ), but first warming up the 
+    * InjectionPlans of every class in the specified packages
+    * @param resolver the DependencyResolver to use
+    * @param warmUpPackages package names whose classes, including those in subpackages, are 
+    * to be warmed up
+    * @see AbstractInjectionStrategy#warmUp()
+    */
+   public static void initializeSimpleAnnotationDependencyInjection(DependencyResolver resolver, List<String> warmUpPackages) {
+       AbstractInjectionStrategy strategy = new AnnotationInjectionStrategy();
+       strategy.setDependencyResolver(resolver);
+       strategy.setWarmUpPackages(warmUpPackages);
+       initializeStandardDependencyInjection(strategy);
+   }
+   
    public static SimpleTypeMappingResolver initializeSimpleAnnotationDependencyInjection() {	      
 	   SimpleTypeMappingResolver resolver = new SimpleTypeMappingResolver();
 	   initializeSimpleAnnotationDependencyInjection(resolver);
@@ -15,6 +15,8 @@
 
 package net.sourceforge.hypo;
 
+import java.util.stream.Stream;
+
 import net.sourceforge.hypo.inject.InjectionStrategy;
 
 
@@ -30,6 +32,25 @@ public interface DependencyInjector
     */
    void setInjectionStrategy( InjectionStrategy strat ) throws IllegalStateException;   
    
+   /**
+    * Enable or disable coalesced injection. By default, an object is injected once per class 
+    * in its hierarchy, as each class is initialized. When coalescing is enabled and the 
+    * InjectionStrategy is a PlanBasedInjectionStrategy, the whole object is instead injected
+    * exactly once, from its InjectionPlan, immediately before initialization of the topmost class 
+    * that declares dependencies, or of the first class below it whose initialization is advised.
+    * Coalescing is not used if the strategy's plans are not cached (e.g. class caching is 
+    * disabled), as computing the plan at every level would cost more than it saves.
+    * 
+    * Note that coalescing changes the order in which dependencies are injected. Every constructor 
+    * that could see a dependency before still does, but the dependencies declared by subclasses 
+    * are injected before the constructor bodies of their superclasses run, rather than after. 
+    * A superclass constructor that checks whether a subclass dependency is still unset, or that 
+    * calls an overridden method which uses one, behaves differently when coalescing is enabled.
+    * @param coalesce true to inject each object once; false to inject per class
+    * @throws IllegalStateException if the DependencyInjector has already been started
+    */
+   void setCoalesceInjection( boolean coalesce ) throws IllegalStateException;
+   
    /**
     * Start the DependencyInjector
     */
@@ -38,4 +59,22 @@ public interface DependencyInjector
    void stop();
    
    void inject( Object obj );
+   
+   /**
+    * Inject each of the objects as inject( obj ) would. If the InjectionStrategy is a 
+    * BatchInjectionStrategy, the objects are injected together, which is considerably 
+    * cheaper than injecting them one at a time when there are many objects of few classes.
+    * Large batches may be injected in parallel on a pool (see 
+    * AbstractInjectionStrategy.setParallelBatchThreshold()), except for objects with 
+    * Dependencies that the resolver reports as thread-scoped, which are injected on the
+    * calling thread and so receive its instances
+    * @param objs the objects to inject. Null elements are ignored
+    */
+   void injectAll( Iterable<?> objs );
+   
+   /**
+    * As injectAll( Iterable ), for the elements of a Stream. The Stream is consumed
+    * @param objs the objects to inject. Null elements are ignored
+    */
+   void injectAll( Stream<?> objs );
 }
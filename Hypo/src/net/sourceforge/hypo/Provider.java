@@ -0,0 +1,34 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo;
+
+import java.util.function.Supplier;
+
+/**
+ * A dependency declared as Provider&lt;T&gt; (or java.util.function.Supplier&lt;T&gt;) is 
+ * injected with a Provider that resolves a T each time get() is called, rather than with a 
+ * T itself. Whether get() returns the same T every time depends on how T is resolved.
+ *
+ * @param <T> the type provided
+ */
+public interface Provider<T> extends Supplier<T>
+{
+   /**
+    * @return a resolved instance of T
+    * @throws net.sourceforge.hypo.inject.UnresolvedDependenciesException if T cannot be resolved
+    */
+   T get();
+}
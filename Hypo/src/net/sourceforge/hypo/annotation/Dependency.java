@@ -26,4 +26,11 @@ import java.lang.annotation.RetentionPolicy;
 public @interface Dependency
 {
    String value() default "";
+   
+   /**
+    * @return true if the dependency should be resolved when it is first used rather than when 
+    * its object is created. Only dependencies of interface type can be lazy: a proxy is injected
+    * in their place until then. See net.sourceforge.hypo.inject.dependency.LazyDependency
+    */
+   boolean lazy() default false;
 }
@@ -15,19 +15,47 @@
 
 package net.sourceforge.hypo.inject;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import net.sourceforge.hypo.Provider;
 import net.sourceforge.hypo.inject.dependency.DefaultDependencyFactory;
 import net.sourceforge.hypo.inject.dependency.Dependency;
 import net.sourceforge.hypo.inject.dependency.DependencyFactory;
+import net.sourceforge.hypo.inject.dependency.LazyDependency;
+import net.sourceforge.hypo.inject.dependency.ProviderDependency;
 import net.sourceforge.hypo.inject.resolver.DependencyResolver;
+import net.sourceforge.hypo.inject.resolver.InjectionFactory;
 import net.sourceforge.hypo.inject.resolver.NonResolver;
+import net.sourceforge.hypo.inject.resolver.ResolutionResult;
+import net.sourceforge.hypo.inject.resolver.SharedValueResolver;
+import net.sourceforge.hypo.metrics.InjectionMetrics;
+import net.sourceforge.hypo.metrics.InjectionMetricsListener;
 
 
 /**
@@ -36,14 +64,27 @@ import net.sourceforge.hypo.inject.resolver.NonResolver;
  * dependencies (if any) need to be satisfied for a particular Object. A DependencyResolver 
  * is then consulted to determine values for those Dependencies
  */
-public abstract class AbstractInjectionStrategy implements InjectionStrategy
+public abstract class AbstractInjectionStrategy implements PlanBasedInjectionStrategy, BatchInjectionStrategy
 {
+   private static final int BATCH_SPLIT_SIZE = 256;
+   private static final int WARM_UP_SPLIT_SIZE = 16;
+   
    private Logger log = Logger.getLogger( this.getClass().getCanonicalName() );
    private DependencyResolver resolver = new NonResolver();
    private DependencyFactory dependencyFactory = new DefaultDependencyFactory();   
    private boolean useClassCaching = true;
-   private Map<Class<?>, List<Dependency>> cachedDependencies = new HashMap<Class<?>, List<Dependency>>();
-   private ThreadLocal<Set<Class<?>>> cycleDetect = new ThreadLocal<Set<Class<?>>>();
+   private boolean lazyInjection;
+   private ConcurrentMap<Class<?>, List<Dependency>> cachedDependencies = new ConcurrentHashMap<Class<?>, List<Dependency>>();
+   private Set<Class<?>> cachedWithoutDependencies = Collections.newSetFromMap( new ConcurrentHashMap<Class<?>, Boolean>() );
+   private ConcurrentMap<Class<?>, InjectionPlan> cachedPlans = new ConcurrentHashMap<Class<?>, InjectionPlan>();
+   private int maxInjectionDepth = InjectionStack.DEFAULT_MAX_DEPTH;
+   private int parallelBatchThreshold = Integer.MAX_VALUE;
+   private ForkJoinPool batchPool;
+   private List<String> warmUpPackages = Collections.emptyList();
+   private List<String> warmUpClasses = Collections.emptyList();
+   private File planCacheFile;
+   private volatile PlanCacheFile persistedPlans;
+   private volatile boolean persistedPlansOpened;
    	
   /**
    * Determine if the specified object requires dependency injection, and if it does,
@@ -51,70 +92,354 @@ public abstract class AbstractInjectionStrategy implements InjectionStrategy
    * An object that does not require dependencies to be injected
    * is ignored. If the object was considered eligible for dependency injection, but one
    * or more of the dependencies could not be satisfied by the DependencyResolver
-   * then an exception is thrown. A simple mechanism is used to detect cyclic dependencies
-   * and an exception is thrown if a cycle is detected
+   * then an exception is thrown. The classes being injected on each thread are tracked 
+   * (see InjectionStack), and an exception giving the path of the cycle is thrown if a cycle
+   * is detected, or if injections are nested more deeply than the maximum injection depth
    * @param obj an object to consider for dependency injection
    * @return true if the object was eligible for dependency injection and has had all 
    * identified dependencies injected; false if the object was ineligible for dependency 
    * injection
    * @throws UnresolvedDependenciesException if the object was eligible for dependency 
    * injection, but not all of the identified dependencies could be resolved
-   * @throws IllegalStateException if a cycle was detected trying to resolve dependencies for the object
+   * @throws IllegalStateException if a cycle was detected trying to resolve dependencies for the object,
+   * or the maximum injection depth was exceeded
+   * @see #setMaxInjectionDepth(int)
    */
    public final boolean performInjection( Object obj, Class<?> clazz ) throws UnresolvedDependenciesException, IllegalStateException
    {
-      boolean retval = false;
+      // Tracked by the class of obj, not the level being injected: instances of sibling 
+      // classes share superclass levels, and injecting one inside another is not a cycle
+      InjectionStack stack = InjectionStack.current();
+      stack.push( obj.getClass(), maxInjectionDepth );
+      try
+      {
+         return inject( obj, clazz, getDependencies( clazz ), null );
+      }
+      finally
+      {
+         stack.pop();
+      }
+   }
+   
+   /**
+    * As performInjection( obj, clazz ), but for every class in the hierarchy of obj at once. 
+    * The InjectionPlan for the class of obj is executed in a single pass 
+    * @see #getInjectionPlan(Class)
+    */
+   public final boolean performInjection( Object obj ) throws UnresolvedDependenciesException, IllegalStateException
+   {
+      Class<?> clazz = obj.getClass();
+      InjectionStack stack = InjectionStack.current();
+      stack.push( clazz, maxInjectionDepth );
       try
       {
-         register( clazz );
+         return inject( obj, clazz, getInjectionPlan( clazz ).getDependencies(), null );
+      }
+      finally
+      {
+         stack.pop();
+      }
+   }
+   
+   /**
+    * As performInjection( obj ) for each of the objects, but with the objects grouped by class 
+    * so that the InjectionPlan for each class is looked up once. If the DependencyResolver is a
+    * SharedValueResolver, each Dependency that resolves to the same value for every target is 
+    * resolved once per class rather than once per object. Groups of at least the parallel batch
+    * threshold are injected in parallel, unless the resolver reports that one of their 
+    * Dependencies is thread-scoped: those groups are injected on the calling thread, so that 
+    * they receive its instances rather than those of pool threads
+    * @see #setParallelBatchThreshold(int)
+    * @see SharedValueResolver#isThreadScoped(Dependency)
+    */
+   public final int performBatchInjection( List<?> objects ) throws UnresolvedDependenciesException, IllegalStateException
+   {
+      Map<Class<?>, List<Object>> byClass = new LinkedHashMap<Class<?>, List<Object>>();
+      for ( Object obj : objects )
+      {
+         if ( obj == null )
+            continue;
+         List<Object> group = byClass.get( obj.getClass() );
+         if ( group == null )
+         {
+            group = new ArrayList<Object>();
+            byClass.put( obj.getClass(), group );
+         }
+         group.add( obj );
+      }
       
-         List<Dependency> members = getDependencies( clazz );
-         if ( members != null && members.size() > 0 )
+      int injected = 0;
+      for ( Map.Entry<Class<?>, List<Object>> entry : byClass.entrySet() )
+      {
+         Class<?> clazz = entry.getKey();
+         List<Object> group = entry.getValue();
+         List<Dependency> members = getInjectionPlan( clazz ).getDependencies();
+         if ( members.isEmpty() )
          {
-            retval = true;
             if ( log.isLoggable(Level.FINE) )
-               log.fine( "Started processing eligible object [" + Utils.getName( obj ) + "]. Class " + clazz.getName() );
-            Set<Dependency> unresolved = new HashSet<Dependency>( members );
-            for ( Dependency member: members )
-            {
-               boolean resolved = resolver.resolve( member, obj );
-               if ( resolved )
-                  unresolved.remove( member );
-            }
-            if ( unresolved.size() > 0 )
-               throw new UnresolvedDependenciesException( obj, unresolved );
-            else
-            {
-               if ( log.isLoggable(Level.FINE) )
-                  log.fine( "Completed processing object [" + Utils.getName( obj ) + "]. Class " + clazz.getName() );
-            }
+               log.fine( "Ignoring " + group.size() + " ineligible objects of class " + clazz.getName() );
+            continue;
+         }
+         
+         ResolutionResult[] shared = resolveShared( members );
+         if ( group.size() >= parallelBatchThreshold && !isThreadScoped( members ) )
+         {
+            ForkJoinPool pool = batchPool != null ? batchPool : ForkJoinPool.commonPool();
+            injected += pool.invoke( new BatchTask( group, 0, group.size(), clazz, members, shared ) );
          }
          else
+            injected += injectGroup( group, 0, group.size(), clazz, members, shared );
+      }
+      return injected;
+   }
+   
+   /**
+    * Fill the InjectionPlan cache for every class in the warm-up packages and the warm-up 
+    * classes, so that the first instance of each class does not have to pay for finding its 
+    * Dependencies. The classes are loaded, without being initialized, and planned in parallel on
+    * the batch pool. The DependencyInjectionAspect calls this before ready() returns. Does 
+    * nothing if class caching is disabled
+    * @return the number of classes whose InjectionPlans are now cached
+    * @see #setWarmUpPackages(List)
+    * @see #setWarmUpClasses(List)
+    */
+   public int warmUp()
+   {
+      if ( !useClassCaching )
+         return 0;
+      getPersistedPlans();
+      if ( warmUpPackages.isEmpty() && warmUpClasses.isEmpty() )
+         return 0;
+      
+      long start = System.nanoTime();
+      ClassLoader loader = Thread.currentThread().getContextClassLoader();
+      if ( loader == null )
+         loader = getClass().getClassLoader();
+      
+      Set<String> names = new LinkedHashSet<String>( warmUpClasses );
+      for ( String packageName : warmUpPackages )
+         names.addAll( ClassScanner.findClassNames( loader, packageName ) );
+      
+      AtomicInteger warmed = new AtomicInteger();
+      AtomicInteger eligible = new AtomicInteger();
+      List<String> nameList = new ArrayList<String>( names );
+      ForkJoinPool pool = batchPool != null ? batchPool : ForkJoinPool.commonPool();
+      pool.invoke( new WarmUpTask( nameList, 0, nameList.size(), loader, warmed, eligible ) );
+      
+      if ( log.isLoggable(Level.INFO) )
+         log.info( "Warmed up injection plans for " + warmed.get() + " of " + nameList.size() + " classes, " 
+                  + eligible.get() + " of them eligible for injection, in " 
+                  + TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) + "ms." );
+      return warmed.get();
+   }
+   
+   private int injectGroup( List<Object> group, int from, int to, Class<?> clazz, List<Dependency> members, ResolutionResult[] shared )
+   {
+      int injected = 0;
+      InjectionStack stack = InjectionStack.current();
+      stack.push( clazz, maxInjectionDepth );
+      try
+      {
+         for ( int i = from; i < to; i++ )
          {
-        	if ( log.isLoggable(Level.FINE) )
-               log.fine( "Ignoring ineligible object [" + Utils.getName( obj ) + "]. Class " + clazz.getName() );
+            if ( inject( group.get( i ), clazz, members, shared ) )
+               injected++;
          }
       }
       finally
       {
-    	  unregister( clazz );
+         stack.pop();
+      }
+      return injected;
+   }
+   
+   /**
+    * @return for each of the members, the value that the DependencyResolver resolves it to for 
+    * every target, or null if that depends on the target; or null if the resolver cannot say
+    */
+   private ResolutionResult[] resolveShared( List<Dependency> members )
+   {
+      if ( !( resolver instanceof SharedValueResolver ) )
+         return null;
+      ResolutionResult[] retval = new ResolutionResult[ members.size() ];
+      for ( int i = 0; i < retval.length; i++ )
+      {
+         if ( members.get( i ) instanceof ProviderDependency )
+            continue;
+         ResolutionResult result = ( (SharedValueResolver) resolver ).resolveShared( members.get( i ) );
+         if ( result != null && !( result.isResolved() && result.getValueToInject() instanceof InjectionFactory ) )
+            retval[ i ] = result;
       }
       return retval;
    }
    
-   public final boolean performInjection( Object obj ) throws UnresolvedDependenciesException, IllegalStateException
+   /**
+    * @return true if the DependencyResolver may resolve any of the members to an instance 
+    * belonging to the calling thread
+    */
+   private boolean isThreadScoped( List<Dependency> members )
    {
-      Class<?> clazz = obj.getClass();
-      boolean retval = false;
-      while ( clazz != Object.class )
+      if ( !( resolver instanceof SharedValueResolver ) )
+         return false;
+      for ( int i = 0; i < members.size(); i++ )
+      {
+         if ( ( (SharedValueResolver) resolver ).isThreadScoped( members.get( i ) ) )
+            return true;
+      }
+      return false;
+   }
+   
+   /**
+    * Resolve and inject each of the Dependencies for obj in turn
+    * @param shared values already resolved for some of the Dependencies, by index; or null
+    * @return true if there were any Dependencies; false if obj was ineligible
+    * @throws UnresolvedDependenciesException if any of the Dependencies could not be resolved
+    */
+   private boolean inject( Object obj, Class<?> clazz, List<Dependency> members, ResolutionResult[] shared ) throws UnresolvedDependenciesException
+   {
+      int size = members != null ? members.size() : 0;
+      if ( size == 0 )
       {
-         boolean injectionPerformed = performInjection( obj, clazz );
-         retval = retval || injectionPerformed;
-         clazz = clazz.getSuperclass();
+         if ( log.isLoggable(Level.FINE) )
+            log.fine( "Ignoring ineligible object [" + Utils.getName( obj ) + "]. Class " + clazz.getName() );
+         return false;
+      }
+      
+      if ( log.isLoggable(Level.FINE) )
+         log.fine( "Started processing eligible object [" + Utils.getName( obj ) + "]. Class " + clazz.getName() );
+      InjectionMetricsListener metrics = InjectionMetrics.getListener();
+      long start = metrics != null ? System.nanoTime() : 0L;
+      long unresolved = 0L;
+      BitSet unresolvedOverflow = null;
+      for ( int i = 0; i < size; i++ )
+      {
+         Dependency member = members.get( i );
+         ResolutionResult result = shared != null ? shared[ i ] : null;
+         boolean resolved;
+         if ( result != null )
+         {
+            if ( result.isResolved() )
+               member.injectValue( obj, result.getValueToInject() );
+            resolved = result.isResolved();
+         }
+         else
+            resolved = injectMember( obj, member );
+         
+         if ( !resolved )
+         {
+            if ( i < Long.SIZE )
+               unresolved |= 1L << i;
+            else
+            {
+               if ( unresolvedOverflow == null )
+                  unresolvedOverflow = new BitSet();
+               unresolvedOverflow.set( i );
+            }
+         }
+      }
+      if ( unresolved != 0L || unresolvedOverflow != null )
+         throw new UnresolvedDependenciesException( obj, selectMembers( members, unresolved, unresolvedOverflow ) );
+      if ( metrics != null )
+         metrics.classInjected( clazz, size, System.nanoTime() - start );
+      
+      if ( log.isLoggable(Level.FINE) )
+         log.fine( "Completed processing object [" + Utils.getName( obj ) + "]. Class " + clazz.getName() );
+      return true;
+   }
+   
+   /**
+    * @param unresolved a bitmap of the indexes of the first 64 members
+    * @param unresolvedOverflow the indexes of any further members, or null if there are none
+    * @return the members at the given indexes, in order
+    */
+   static List<Dependency> selectMembers( List<Dependency> members, long unresolved, BitSet unresolvedOverflow )
+   {
+      List<Dependency> retval = new ArrayList<Dependency>();
+      for ( long bits = unresolved; bits != 0L; bits &= bits - 1 )
+         retval.add( members.get( Long.numberOfTrailingZeros( bits ) ) );
+      if ( unresolvedOverflow != null )
+      {
+         for ( int i = unresolvedOverflow.nextSetBit( 0 ); i >= 0; i = unresolvedOverflow.nextSetBit( i + 1 ) )
+            retval.add( members.get( i ) );
       }
       return retval;
    }
    
+   /**
+    * Resolve and inject a single Dependency of obj through the DependencyResolver, or inject a 
+    * Provider or lazy proxy for it. Also used by CompositeInjectionStrategy to execute merged plans
+    * @return true if the Dependency was resolved
+    */
+   final boolean injectMember( Object obj, Dependency member )
+   {
+      if ( member instanceof ProviderDependency )
+      {
+         member.injectValue( obj, new ResolvingProvider( (ProviderDependency) member, resolver, obj ) );
+         return true;
+      }
+      if ( isLazy( member ) )
+      {
+         member.injectValue( obj, LazyProxy.create( member, resolver, obj ) );
+         return true;
+      }
+      return resolver.resolve( member, obj );
+   }
+   
+   /**
+    * @return true if the Dependency should have a proxy injected for it, to be resolved on first use
+    */
+   private boolean isLazy( Dependency member )
+   {
+      return ( lazyInjection || member instanceof LazyDependency ) && member.getType().isInterface();
+   }
+   
+   /**
+    * Get the InjectionPlan for instances of the specified class: the Dependencies declared
+    * by the class itself, followed by those of each of its superclasses in turn, with any
+    * Dependency that appears at more than one level included only once. If class caching
+    * is enabled, the plan is computed once per class and cached
+    * @param clazz the concrete class of instances to be injected
+    * @return the InjectionPlan for the class. This is InjectionPlan.EMPTY if instances
+    * of the class are ineligible for dependency injection
+    */
+   public InjectionPlan getInjectionPlan( Class<?> clazz )
+   {
+      if ( !useClassCaching )
+         return createInjectionPlan( clazz );
+      
+      InjectionPlan retval = cachedPlans.get( clazz );
+      if ( retval == null )
+      {
+         retval = createInjectionPlan( clazz );
+         InjectionPlan existing = cachedPlans.putIfAbsent( clazz, retval );
+         if ( existing != null )
+            retval = existing;
+         else
+         {
+            InjectionMetricsListener metrics = InjectionMetrics.getListener();
+            if ( metrics != null )
+               metrics.planCacheSizeChanged( this, cachedPlans.size() );
+         }
+      }
+      return retval;
+   }
+   
+   private InjectionPlan createInjectionPlan( Class<?> clazz )
+   {
+      Set<Dependency> merged = new LinkedHashSet<Dependency>();
+      Class<?> firstInjectedClass = null;
+      for ( Class<?> level = clazz; level != null && level != Object.class; level = level.getSuperclass() )
+      {
+         List<Dependency> members = getDependencies( level );
+         if ( members != null && members.size() > 0 )
+         {
+            merged.addAll( members );
+            firstInjectedClass = level;
+         }
+      }
+      return InjectionPlan.create( merged, firstInjectedClass );
+   }
+   
    /**
     * Return a List of Dependencies which need to be satisfied for the given instance
     * @param obj an instance which is to be assessed for dependency injection
@@ -129,7 +454,7 @@ public abstract class AbstractInjectionStrategy implements InjectionStrategy
     * from selectDependencies() on a per class basis. If this method returns true
     * then selectDependencies() will only be called once for each distinct class; thereafter the 
     * List of Dependencies will be cached and returned directly for all subsequent instances of 
-    * that class. Defaults to true.
+    * that class. The same applies to the InjectionPlan for each class. Defaults to true.
     * @param cc true to enable class caching; false to disable
     */
    public void setClassCaching( boolean cc )
@@ -137,34 +462,346 @@ public abstract class AbstractInjectionStrategy implements InjectionStrategy
       useClassCaching = cc;
    }
    
+   /**
+    * @return true if class caching is enabled
+    */
+   final boolean isClassCaching()
+   {
+      return useClassCaching;
+   }
+   
+   /**
+    * @return true if class caching is enabled, in which case each InjectionPlan is cached
+    */
+   public boolean isPlanCached()
+   {
+      return useClassCaching;
+   }
+   
+   /**
+    * Determines whether every Dependency of interface type is injected lazily, as if it were
+    * a LazyDependency: a proxy is injected in its place, and it is only resolved when one of
+    * the proxy's methods is first called, at which point the proxy is replaced by the real 
+    * value. A Dependency that cannot be resolved is then reported by that call rather than when 
+    * the object is injected. Dependencies resolved to one value for a whole batch are never 
+    * lazy. Defaults to false, i.e. only Dependencies that are individually marked as lazy are
+    * @param lazy true to inject every Dependency of interface type lazily
+    */
+   public void setLazyInjection( boolean lazy )
+   {
+      lazyInjection = lazy;
+   }
+   
+   /**
+    * Set the number of objects of one class in a batch at or above which performBatchInjection()
+    * injects them in parallel. Defaults to Integer.MAX_VALUE, i.e. batches are always injected
+    * on the calling thread. Objects with thread-scoped Dependencies are always injected on the
+    * calling thread
+    * @param threshold the minimum number of objects of a class to inject in parallel
+    */
+   public void setParallelBatchThreshold( int threshold )
+   {
+      parallelBatchThreshold = threshold;
+   }
+   
+   /**
+    * Set the packages whose classes warmUp() should compute InjectionPlans for. Subpackages are
+    * included
+    * @param packageNames package names, e.g. "com.example.model"
+    */
+   public void setWarmUpPackages( List<String> packageNames )
+   {
+      warmUpPackages = new ArrayList<String>( packageNames );
+   }
+   
+   /**
+    * Set a file to persist the Dependencies found for each class in, across runs. It is read 
+    * when first needed, and written by savePlanCache(). Has no effect if class caching is disabled
+    * @param file the plan cache file. It need not exist yet
+    */
+   public synchronized void setPlanCacheFile( File file )
+   {
+      planCacheFile = file;
+      persistedPlans = null;
+      persistedPlansOpened = false;
+   }
+   
+   /**
+    * Set individual classes that warmUp() should compute InjectionPlans for
+    * @param classNames fully qualified class names
+    */
+   public void setWarmUpClasses( List<String> classNames )
+   {
+      warmUpClasses = new ArrayList<String>( classNames );
+   }
+   
+   /**
+    * Set the maximum number of injections that may be nested on one thread, i.e. how deep a
+    * chain of objects whose injection causes the creation and injection of another object may
+    * go before it is assumed to be runaway and an IllegalStateException is thrown. This applies
+    * across all InjectionStrategies on the thread. Defaults to 128
+    * @param depth the maximum injection depth
+    */
+   public void setMaxInjectionDepth( int depth )
+   {
+      if ( depth < 1 )
+         throw new IllegalArgumentException( "Maximum injection depth must be at least 1" );
+      maxInjectionDepth = depth;
+   }
+   
+   /**
+    * Set the ForkJoinPool used to inject large batches and to warm up in parallel. Defaults to the common pool
+    * @param pool a ForkJoinPool
+    */
+   public void setBatchPool( ForkJoinPool pool )
+   {
+      batchPool = pool;
+   }
+   
    /**
     * @param obj an instance to consider for dependency injection
     * @return a list of Dependencies that need to be satisfied for this instance. If 
     * this list is empty, then the instance is deemed ineligible for dependency 
     * injection. If class caching is enabled then a per-class cache is consulted first
     * and if present, a List of Dependencies is returned directly. Otherwise, this method 
-    * returns the result of selectDependencies()
+    * returns the result of selectDependencies(). The cache may be read and populated 
+    * concurrently by any number of threads without locking. Classes without any 
+    * Dependencies - typically the vast majority - are held in a separate set so that
+    * the check for them is as cheap as possible
     */
    private List<Dependency> getDependencies( Class<?> clazz )
    {
       List<Dependency> retval = null;
       if ( useClassCaching )
       {
-         if ( cachedDependencies.containsKey( clazz ) )
-            retval = cachedDependencies.get( clazz );
-         else
+         if ( cachedWithoutDependencies.contains( clazz ) )
+            return Collections.emptyList();
+         
+         retval = cachedDependencies.get( clazz );
+         if ( retval == null )
          {
-            retval = selectDependencies( clazz );
-            cachedDependencies.put( clazz, retval );
+            retval = findDependencies( clazz );
+            if ( retval == null || retval.isEmpty() )
+            {
+               cachedWithoutDependencies.add( clazz );
+               retval = Collections.emptyList();
+            }
+            else
+            {
+               // If another thread got there first, use its list so that all threads share the same Dependencies
+               List<Dependency> existing = cachedDependencies.putIfAbsent( clazz, retval );
+               if ( existing != null )
+                  retval = existing;
+            }
          }
       }
       else
       {
+         retval = findDependencies( clazz );
+      }
+      return retval;
+   }
+   
+   /**
+    * @return the Dependencies from the compile-time generated injector for the class if 
+    * there is one and this strategy can use it; otherwise those recorded for the class in 
+    * the plan cache file, if it is unchanged; otherwise the result of selectDependencies()
+    */
+   private List<Dependency> findDependencies( Class<?> clazz )
+   {
+      List<Dependency> retval = null;
+      if ( isGeneratedInjectorSupported() && dependencyFactory.getClass() == DefaultDependencyFactory.class )
+         retval = GeneratedInjectors.findDependencies( clazz );
+      if ( retval == null && useClassCaching )
+         retval = findPersistedDependencies( clazz );
+      if ( retval == null )
          retval = selectDependencies( clazz );
+      return withProviders( retval );
+   }
+   
+   /**
+    * @return the Dependencies, with each one declared as a Provider&lt;T&gt; or Supplier&lt;T&gt; 
+    * of a known T replaced by a ProviderDependency
+    */
+   private static List<Dependency> withProviders( List<Dependency> dependencies )
+   {
+      if ( dependencies == null )
+         return null;
+      List<Dependency> retval = dependencies;
+      for ( int i = 0; i < dependencies.size(); i++ )
+      {
+         Dependency dep = dependencies.get( i );
+         if ( dep instanceof ProviderDependency || ( dep.getType() != Provider.class && dep.getType() != Supplier.class ) )
+            continue;
+         Class<?> elementType = getElementType( dep.getMember() );
+         if ( elementType != null )
+         {
+            if ( retval == dependencies )
+               retval = new ArrayList<Dependency>( dependencies );
+            retval.set( i, new ProviderDependency( dep, elementType ) );
+         }
       }
       return retval;
    }
    
+   /**
+    * @return the class of the type argument of a field or setter parameter declared as 
+    * Provider&lt;T&gt; or Supplier&lt;T&gt;, or null if it cannot be determined
+    */
+   private static Class<?> getElementType( Member member )
+   {
+      Type type = null;
+      if ( member instanceof Field )
+         type = ( (Field) member ).getGenericType();
+      else if ( member instanceof Method && ( (Method) member ).getParameterTypes().length == 1 )
+         type = ( (Method) member ).getGenericParameterTypes()[0];
+      if ( !( type instanceof ParameterizedType ) )
+         return null;
+      
+      Type argument = ( (ParameterizedType) type ).getActualTypeArguments()[0];
+      if ( argument instanceof WildcardType )
+         argument = ( (WildcardType) argument ).getUpperBounds()[0];
+      if ( argument instanceof ParameterizedType )
+         argument = ( (ParameterizedType) argument ).getRawType();
+      return argument instanceof Class ? (Class<?>) argument : null;
+   }
+   
+   /**
+    * Re-create the Dependencies recorded for a class in the plan cache file. Each member is
+    * looked up directly by name, so the class's fields and methods are not enumerated and 
+    * none of their annotations are read
+    * @return the Dependencies, or null if the class has no valid entry
+    */
+   private List<Dependency> findPersistedDependencies( Class<?> clazz )
+   {
+      PlanCacheFile persisted = getPersistedPlans();
+      if ( persisted == null )
+         return null;
+      List<PlanCacheFile.MemberDescriptor> members = persisted.lookup( clazz );
+      if ( members == null )
+         return null;
+      if ( members.isEmpty() )
+         return Collections.emptyList();
+      
+      List<Dependency> retval = new ArrayList<Dependency>( members.size() );
+      try
+      {
+         for ( PlanCacheFile.MemberDescriptor descriptor : members )
+         {
+            Member member;
+            if ( descriptor.kind == PlanCacheFile.FIELD )
+               member = clazz.getDeclaredField( descriptor.name );
+            else
+               member = clazz.getDeclaredMethod( descriptor.name, PlanCacheFile.loadType( descriptor.parameterType, clazz.getClassLoader() ) );
+            Dependency dep = createDependency( member, descriptor.associatedName );
+            retval.add( descriptor.lazy ? new LazyDependency( dep ) : dep );
+         }
+      }
+      catch( ReflectiveOperationException e )
+      {
+         if ( log.isLoggable(Level.FINE) )
+            log.fine( "Cached injection plan for " + clazz.getName() + " no longer matches the class: " + e );
+         return null;
+      }
+      catch( LinkageError e )
+      {
+         if ( log.isLoggable(Level.FINE) )
+            log.fine( "Cached injection plan for " + clazz.getName() + " no longer matches the class: " + e );
+         return null;
+      }
+      catch( RuntimeException e )
+      {
+         // Fall back to finding the Dependencies by reflection
+         log.log( Level.WARNING, "Ignoring unusable cached injection plan for " + clazz.getName() + ".", e );
+         return null;
+      }
+      return retval;
+   }
+   
+   /**
+    * @return the plan cache file, opened on first use; or null if there is none, or it
+    * could not be used
+    */
+   private PlanCacheFile getPersistedPlans()
+   {
+      if ( !persistedPlansOpened )
+      {
+         synchronized( this )
+         {
+            if ( !persistedPlansOpened )
+            {
+               String signature = getPlanCacheSignature();
+               if ( planCacheFile != null && signature != null )
+               {
+                  persistedPlans = PlanCacheFile.open( planCacheFile, signature );
+                  if ( persistedPlans != null && log.isLoggable(Level.INFO) )
+                     log.info( "Opened injection plan cache " + planCacheFile + " with " + persistedPlans.size() + " classes." );
+               }
+               persistedPlansOpened = true;
+            }
+         }
+      }
+      return persistedPlans;
+   }
+   
+   /**
+    * Write the Dependencies of every class in the per-class cache to the plan cache file, along
+    * with any entries read from the file that have not been used in this run. The next instance
+    * of this strategy to use the file re-creates the Dependencies of any class whose class file 
+    * is unchanged without calling selectDependencies(). Called by the DependencyInjectionAspect 
+    * when it is stopped. A failure to write the file is logged, not thrown
+    * @return the number of classes written; 0 if there is no plan cache file or class caching 
+    * is disabled
+    * @see #setPlanCacheFile(File)
+    */
+   public int savePlanCache()
+   {
+      String signature = getPlanCacheSignature();
+      if ( planCacheFile == null || signature == null || !useClassCaching )
+         return 0;
+      
+      Map<Class<?>, List<Dependency>> entries = new HashMap<Class<?>, List<Dependency>>( cachedDependencies );
+      List<Dependency> none = Collections.emptyList();
+      for ( Class<?> clazz : cachedWithoutDependencies )
+         entries.put( clazz, none );
+      try
+      {
+         int written = PlanCacheFile.write( planCacheFile, signature, entries, getPersistedPlans() );
+         if ( log.isLoggable(Level.INFO) )
+            log.info( "Wrote injection plans for " + written + " classes to " + planCacheFile + "." );
+         return written;
+      }
+      catch( IOException e )
+      {
+         log.log( Level.WARNING, "Could not write injection plan cache " + planCacheFile + ".", e );
+         return 0;
+      }
+   }
+   
+   /**
+    * Identifies the configuration of this strategy that its Dependencies depend on, so that
+    * a plan cache file written under one configuration is not used under another. Subclasses 
+    * with settings that affect selectDependencies() should include them. 
+    * @return the signature, or null if the Dependencies of this strategy cannot be persisted. 
+    * Defaults to the class name
+    */
+   protected String getPlanCacheSignature()
+   {
+      return getClass().getName();
+   }
+   
+   /**
+    * Indicates whether a GeneratedInjector, if one was generated at compile time for a class, 
+    * yields exactly the same Dependencies as selectDependencies() would. If so, it is used
+    * instead of calling selectDependencies(). Generated injectors are never used if a 
+    * DependencyFactory other than DefaultDependencyFactory has been set. Defaults to false.
+    * @return true if generated injectors may be used by this InjectionStrategy
+    */
+   protected boolean isGeneratedInjectorSupported()
+   {
+      return false;
+   }
+   
    /**
     * Set the DependencyResolver to use for dependency resolution
     * @param resolver
@@ -194,42 +831,103 @@ public abstract class AbstractInjectionStrategy implements InjectionStrategy
    }
    
    /**
-    * Make a note of the specified class in a thread local collection. If the class is already present then this
-    * indicates that we were already in the process of resolving dependencies for an instance of that class, 
-    * so there must somehow be a cycle in the dependencies. If this is the case, break out of the cycle by 
-    * throwing an exception
-    * @param clazz the class of an instance that is having dependencies injected 
-    * @throws IllegalStateException if there appear to be cyclical dependencies.
+    * Injects a range of a group of objects of the same class, splitting it in half until
+    * the pieces are small enough to inject directly
     */
-   private void register( Class<?> clazz ) throws IllegalStateException
+   private class BatchTask extends RecursiveTask<Integer>
    {
-	   if ( cachedDependencies.containsKey( clazz ) )
-		   return;
-	   Set<Class<?>> inProgress = cycleDetect.get();
-	   if ( inProgress == null )
-	   {
-		   inProgress = new HashSet<Class<?>>();
-		   cycleDetect.set( inProgress );
-	   }
-	   if ( inProgress.contains( clazz ) )
-	   {
-		   throw new IllegalStateException( "Cyclic dependency detected on attempt to inject an instance of " + clazz );
-	   }
-	   else
-		   inProgress.add( clazz );
+      private static final long serialVersionUID = 1L;
+      
+      private final List<Object> group;
+      private final int from;
+      private final int to;
+      private final Class<?> clazz;
+      private final List<Dependency> members;
+      private final ResolutionResult[] shared;
+      
+      BatchTask( List<Object> group, int from, int to, Class<?> clazz, List<Dependency> members, ResolutionResult[] shared )
+      {
+         this.group = group;
+         this.from = from;
+         this.to = to;
+         this.clazz = clazz;
+         this.members = members;
+         this.shared = shared;
+      }
+      
+      protected Integer compute()
+      {
+         if ( to - from <= BATCH_SPLIT_SIZE )
+            return injectGroup( group, from, to, clazz, members, shared );
+         
+         int middle = ( from + to ) >>> 1;
+         BatchTask upper = new BatchTask( group, middle, to, clazz, members, shared );
+         upper.fork();
+         int injected = new BatchTask( group, from, middle, clazz, members, shared ).compute();
+         return injected + upper.join();
+      }
    }
    
    /**
-    * Called on completion of processing an instance to indicate that we have finished injecting dependencies
-    * for an instance of this class.
-    * @param clazz the class of an instance that has had dependencies injected
+    * Loads and computes the InjectionPlan for a range of a list of class names, splitting it
+    * in half until the pieces are small enough to process directly
     */
-   private void unregister( Class<?> clazz )
+   private class WarmUpTask extends RecursiveAction
    {
-	   if ( cachedDependencies.containsKey( clazz ) )
-		   return;
-	   Set<Class<?>> inProgress = cycleDetect.get();
-	   if ( inProgress != null )
-	      inProgress.remove( clazz );
-   }  
+      private static final long serialVersionUID = 1L;
+      
+      private final List<String> names;
+      private final int from;
+      private final int to;
+      private final ClassLoader loader;
+      private final AtomicInteger warmed;
+      private final AtomicInteger eligible;
+      
+      WarmUpTask( List<String> names, int from, int to, ClassLoader loader, AtomicInteger warmed, AtomicInteger eligible )
+      {
+         this.names = names;
+         this.from = from;
+         this.to = to;
+         this.loader = loader;
+         this.warmed = warmed;
+         this.eligible = eligible;
+      }
+      
+      protected void compute()
+      {
+         if ( to - from > WARM_UP_SPLIT_SIZE )
+         {
+            int middle = ( from + to ) >>> 1;
+            invokeAll( new WarmUpTask( names, from, middle, loader, warmed, eligible ), 
+                       new WarmUpTask( names, middle, to, loader, warmed, eligible ) );
+            return;
+         }
+         
+         for ( int i = from; i < to; i++ )
+         {
+            String name = names.get( i );
+            try
+            {
+               Class<?> clazz = Class.forName( name, false, loader );
+               if ( !getInjectionPlan( clazz ).isEmpty() )
+                  eligible.incrementAndGet();
+               warmed.incrementAndGet();
+            }
+            catch( ClassNotFoundException e )
+            {
+               log.warning( "Could not warm up injection plan for class " + name + ": class not found." );
+            }
+            catch( LinkageError e )
+            {
+               if ( log.isLoggable(Level.FINE) )
+                  log.fine( "Could not warm up injection plan for class " + name + ": " + e );
+            }
+            catch( RuntimeException e )
+            {
+               // Reported again when the first instance is injected; don't stop the others warming up
+               log.log( Level.WARNING, "Could not warm up injection plan for class " + name + ".", e );
+            }
+         }
+      }
+   }
 }
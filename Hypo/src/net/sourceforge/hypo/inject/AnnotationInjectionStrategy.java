@@ -24,6 +24,7 @@ import java.util.Collections;
 import java.util.List;
 
 import net.sourceforge.hypo.inject.dependency.Dependency;
+import net.sourceforge.hypo.inject.dependency.LazyDependency;
 
 
 /**
@@ -37,6 +38,7 @@ import net.sourceforge.hypo.inject.dependency.Dependency;
 public class AnnotationInjectionStrategy extends AbstractInjectionStrategy
 {
    private Class<? extends Annotation> memberAnnotationClass = net.sourceforge.hypo.annotation.Dependency.class;
+   private boolean useGeneratedInjectors = true;
 	
    /**
 	* Return a list of Dependencies representing fields and simple setter methods for 
@@ -56,7 +58,7 @@ public class AnnotationInjectionStrategy extends AbstractInjectionStrategy
 	      {
 	    	 if ( list.isEmpty() )
 	    		 list = new ArrayList<Dependency>();
-	         list.add( createDependency( method.getParameterTypes()[0], getNameForAnnotatedMember( method ) ) );
+	         list.add( createAnnotatedDependency( method ) );
 	      }
 	   }
 	   Field[] fields = clazz.getDeclaredFields();  
@@ -66,15 +68,20 @@ public class AnnotationInjectionStrategy extends AbstractInjectionStrategy
 	      {
 	         if ( list.isEmpty() )
 		        list = new ArrayList<Dependency>();
-	         list.add( createDependency( field, getNameForAnnotatedMember( field ) ) );
+	         list.add( createAnnotatedDependency( field ) );
 	      }
 	   }
 	   return list;
 	}
 	    
+   /**
+    * Bridge methods are skipped: javac copies the annotations of a method onto the bridge 
+    * methods it generates for it, which would otherwise be injected as well
+    */
    private boolean isMethodEligible( Method method )
    {
-      return ( method.getName().startsWith( "set" ) &&
+      return ( !method.isBridge() && !method.isSynthetic() &&
+               method.getName().startsWith( "set" ) &&
                method.getParameterTypes().length == 1 &&
                method.getAnnotation( memberAnnotationClass ) != null );
    }
@@ -84,6 +91,34 @@ public class AnnotationInjectionStrategy extends AbstractInjectionStrategy
       return field.getAnnotation( memberAnnotationClass ) != null;
    }
    
+   /**
+    * Generated injectors (see net.sourceforge.hypo.processor.InjectorProcessor) are only 
+    * produced for the default net.sourceforge.hypo.annotation.Dependency annotation
+    */
+   protected boolean isGeneratedInjectorSupported()
+   {
+      return useGeneratedInjectors && memberAnnotationClass == net.sourceforge.hypo.annotation.Dependency.class;
+   }
+   
+   /**
+    * Dependencies depend on which annotation marks them
+    */
+   protected String getPlanCacheSignature()
+   {
+      return super.getPlanCacheSignature() + ":" + memberAnnotationClass.getName();
+   }
+   
+   /**
+    * Determines whether injectors generated at compile time by the InjectorProcessor
+    * are used in place of reflection to find the Dependencies of a class. Classes 
+    * without a generated injector are always examined by reflection. Defaults to true.
+    * @param use true to use generated injectors where available; false to always use reflection
+    */
+   public void setUseGeneratedInjectors( boolean use )
+   {
+      useGeneratedInjectors = use;
+   }
+   
    /**
     * Set the name of the Annotation class which is used to mark individual
     * members of a class as dependencies. If not specified, the
@@ -116,6 +151,36 @@ public class AnnotationInjectionStrategy extends AbstractInjectionStrategy
       return retval;
    }
    
+   private Dependency createAnnotatedDependency( AccessibleObject member )
+   {
+      Dependency dep = createDependency( member, getNameForAnnotatedMember( member ) );
+      return isLazyAnnotatedMember( member ) ? new LazyDependency( dep ) : dep;
+   }
+   
+   /**
+    * @param member a class member that is annotated by an instance of 
+    * the memberAnnotationClass
+    * @return the lazy() value for the annotation if it has one; false otherwise
+    */
+   private boolean isLazyAnnotatedMember( AccessibleObject member )
+   {
+      Annotation ann = member.getAnnotation( memberAnnotationClass );
+      if ( ann instanceof net.sourceforge.hypo.annotation.Dependency )
+         return ( (net.sourceforge.hypo.annotation.Dependency) ann ).lazy();
+      if ( ann != null )
+      {
+         try
+         {
+            Object lazy = ann.annotationType().getMethod( "lazy" ).invoke( ann );
+            return Boolean.TRUE.equals( lazy );
+         }
+         catch( Exception e )
+         {
+         }
+      }
+      return false;
+   }
+   
    /**
     * @param member a class member that is annotated by an instance of 
     * the memberAnnotationClass
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject;
+
+import java.util.List;
+
+/**
+ * An InjectionStrategy that can inject many objects in one call more cheaply than
+ * injecting each of them in turn, e.g. by doing per-class and per-dependency work once
+ * for the whole batch.
+ */
+public interface BatchInjectionStrategy extends InjectionStrategy
+{
+   /**
+    * Perform dependency injection on each of the objects, with the same outcome for each as 
+    * performInjection( obj ). Objects may be injected in a different order from the list
+    * @param objects the objects to inject. Null elements are ignored
+    * @return the number of objects into which dependencies were injected
+    * @throws UnresolvedDependenciesException if any object was eligible for dependency injection, 
+    * but not all of its dependencies could be resolved. Some of the other objects may or may not
+    * have been injected
+    */
+   int performBatchInjection( List<?> objects ) throws UnresolvedDependenciesException;
+}
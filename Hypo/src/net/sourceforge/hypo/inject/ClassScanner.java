@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Finds the names of the classes in a package and its subpackages by listing the directories 
+ * and jar files that a ClassLoader would load them from. Classes are not loaded.
+ */
+final class ClassScanner
+{
+   private static final String CLASS_SUFFIX = ".class";
+   
+   private static Logger log = Logger.getLogger( ClassScanner.class.getCanonicalName() );
+   
+   private ClassScanner()
+   {
+   }
+   
+   /**
+    * @param loader the ClassLoader whose resources are to be listed
+    * @param packageName a package name, e.g. "com.example.model"
+    * @return the fully qualified names of the classes found in the package and its subpackages,
+    * in no particular order and without duplicates. Locations other than directories and jar 
+    * files are ignored
+    * @throws RuntimeException if the locations of the package could not be listed
+    */
+   static List<String> findClassNames( ClassLoader loader, String packageName )
+   {
+      String path = packageName.replace( '.', '/' );
+      Set<String> retval = new LinkedHashSet<String>();
+      try
+      {
+         Enumeration<URL> urls = loader.getResources( path );
+         while ( urls.hasMoreElements() )
+         {
+            URL url = urls.nextElement();
+            if ( "file".equals( url.getProtocol() ) )
+               scanDirectory( new File( url.toURI() ), packageName, retval );
+            else if ( "jar".equals( url.getProtocol() ) )
+               scanJar( url, path + "/", retval );
+            else if ( log.isLoggable(Level.FINE) )
+               log.fine( "Not scanning " + url + " for classes: unsupported protocol." );
+         }
+      }
+      catch( IOException e )
+      {
+         throw new RuntimeException( "Could not scan package " + packageName, e );
+      }
+      catch( URISyntaxException e )
+      {
+         throw new RuntimeException( "Could not scan package " + packageName, e );
+      }
+      return new ArrayList<String>( retval );
+   }
+   
+   private static void scanDirectory( File dir, String packageName, Set<String> names )
+   {
+      File[] files = dir.listFiles();
+      if ( files == null )
+         return;
+      for ( File file : files )
+      {
+         String name = file.getName();
+         if ( file.isDirectory() )
+            scanDirectory( file, packageName + "." + name, names );
+         else if ( isClassFile( name ) )
+            names.add( packageName + "." + name.substring( 0, name.length() - CLASS_SUFFIX.length() ) );
+      }
+   }
+   
+   private static void scanJar( URL url, String pathPrefix, Set<String> names ) throws IOException
+   {
+      JarURLConnection connection = (JarURLConnection) url.openConnection();
+      connection.setUseCaches( false );
+      JarFile jar = connection.getJarFile();
+      try
+      {
+         Enumeration<JarEntry> entries = jar.entries();
+         while ( entries.hasMoreElements() )
+         {
+            String name = entries.nextElement().getName();
+            if ( name.startsWith( pathPrefix ) && isClassFile( name ) )
+               names.add( name.substring( 0, name.length() - CLASS_SUFFIX.length() ).replace( '/', '.' ) );
+         }
+      }
+      finally
+      {
+         jar.close();
+      }
+   }
+   
+   private static boolean isClassFile( String name )
+   {
+      return name.endsWith( CLASS_SUFFIX ) && !name.endsWith( "package-info.class" ) && !name.endsWith( "module-info.class" );
+   }
+}
@@ -16,16 +16,42 @@
 package net.sourceforge.hypo.inject;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.hypo.inject.dependency.Dependency;
+import net.sourceforge.hypo.metrics.InjectionMetrics;
+import net.sourceforge.hypo.metrics.InjectionMetricsListener;
 
 /**
  * An InjectionStrategy that loops through a list of InjectionStrategies
  * allowing each to try to perform injection. It is possible for more than one 
  * InjectionStrategy to perform injection on a given instance
+ * 
+ * When a whole instance is injected, the InjectionPlans of those strategies that are 
+ * AbstractInjectionStrategies are merged into one plan per class, which is executed in a 
+ * single pass with one round of cycle detection and unresolved Dependency bookkeeping, 
+ * rather than once per strategy. Each Dependency in the merged plan is still resolved 
+ * by the strategy whose plan it came from. A member found by more than one strategy is 
+ * injected only once, by the last of them in the list, so that it ends up with the same 
+ * value as if each strategy had injected it in turn. Any other strategies are called in 
+ * turn afterwards, as before.
  */
-public class CompositeInjectionStrategy implements InjectionStrategy
+public class CompositeInjectionStrategy implements PlanBasedInjectionStrategy
 {
+   private Logger log = Logger.getLogger( this.getClass().getCanonicalName() );
    private List<InjectionStrategy> strategies = new ArrayList<InjectionStrategy>();
+   private List<AbstractInjectionStrategy> planned = new ArrayList<AbstractInjectionStrategy>();
+   private List<InjectionStrategy> unplanned = new ArrayList<InjectionStrategy>();
+   private ConcurrentMap<Class<?>, MergedPlan> mergedPlans = new ConcurrentHashMap<Class<?>, MergedPlan>();
+   private int maxInjectionDepth = InjectionStack.DEFAULT_MAX_DEPTH;
    
    public CompositeInjectionStrategy()
    {
@@ -38,8 +64,25 @@ public class CompositeInjectionStrategy implements InjectionStrategy
    
    public boolean performInjection(Object obj) throws UnresolvedDependenciesException
    {
-	  boolean retval = false;
-      for ( InjectionStrategy strat: strategies )
+      Class<?> clazz = obj.getClass();
+      boolean retval = false;
+      if ( !planned.isEmpty() )
+      {
+         MergedPlan plan = getMergedPlan( clazz );
+         InjectionStack stack = InjectionStack.current();
+         stack.push( clazz, maxInjectionDepth );
+         try
+         {
+            retval = inject( obj, clazz, plan );
+         }
+         finally
+         {
+            stack.pop();
+         }
+      }
+      if ( unplanned.isEmpty() )
+         return retval;
+      for ( InjectionStrategy strat: unplanned )
       {
          if ( strat.performInjection( obj ) )
             retval = true;
@@ -58,8 +101,198 @@ public class CompositeInjectionStrategy implements InjectionStrategy
       return retval;
    }
    
+   /**
+    * @return the merged InjectionPlan of the AbstractInjectionStrategies in the list. Note that
+    * any other strategies in the list are not represented in it
+    */
+   public InjectionPlan getInjectionPlan( Class<?> clazz )
+   {
+      return getMergedPlan( clazz ).plan;
+   }
+   
+   /**
+    * @return true if all of the strategies in the list are AbstractInjectionStrategies, so that
+    * the merged plans are complete
+    */
+   public boolean isCompletelyPlanned()
+   {
+      return unplanned.isEmpty();
+   }
+   
+   /**
+    * @return true if all of the AbstractInjectionStrategies in the list have class caching 
+    * enabled, so that the merged plans are cached
+    */
+   public boolean isPlanCached()
+   {
+      for ( AbstractInjectionStrategy strat: planned )
+      {
+         if ( !strat.isClassCaching() )
+            return false;
+      }
+      return true;
+   }
+   
+   /**
+    * Warm up each of the PlanBasedInjectionStrategies in the list
+    * @return the total number of classes whose InjectionPlans they now cache
+    * @see AbstractInjectionStrategy#warmUp()
+    */
+   public int warmUp()
+   {
+      int warmed = 0;
+      for ( InjectionStrategy strat: strategies )
+      {
+         if ( strat instanceof PlanBasedInjectionStrategy )
+            warmed += ( (PlanBasedInjectionStrategy) strat ).warmUp();
+      }
+      return warmed;
+   }
+   
+   /**
+    * Save the plan cache of each of the PlanBasedInjectionStrategies in the list
+    * @return the total number of classes written
+    * @see AbstractInjectionStrategy#savePlanCache()
+    */
+   public int savePlanCache()
+   {
+      int written = 0;
+      for ( InjectionStrategy strat: strategies )
+      {
+         if ( strat instanceof PlanBasedInjectionStrategy )
+            written += ( (PlanBasedInjectionStrategy) strat ).savePlanCache();
+      }
+      return written;
+   }
+   
+   /**
+    * Execute a merged plan against obj, resolving each Dependency through the strategy it came from
+    * @return true if there were any Dependencies; false if obj was ineligible
+    * @throws UnresolvedDependenciesException if any of the Dependencies could not be resolved
+    */
+   private boolean inject( Object obj, Class<?> clazz, MergedPlan plan ) throws UnresolvedDependenciesException
+   {
+      List<Dependency> members = plan.plan.getDependencies();
+      int size = members.size();
+      if ( size == 0 )
+      {
+         if ( log.isLoggable(Level.FINE) )
+            log.fine( "Ignoring ineligible object [" + Utils.getName( obj ) + "]. Class " + clazz.getName() );
+         return false;
+      }
+      
+      InjectionMetricsListener metrics = InjectionMetrics.getListener();
+      long start = metrics != null ? System.nanoTime() : 0L;
+      long unresolved = 0L;
+      BitSet unresolvedOverflow = null;
+      for ( int i = 0; i < size; i++ )
+      {
+         if ( !plan.owners[ i ].injectMember( obj, members.get( i ) ) )
+         {
+            if ( i < Long.SIZE )
+               unresolved |= 1L << i;
+            else
+            {
+               if ( unresolvedOverflow == null )
+                  unresolvedOverflow = new BitSet();
+               unresolvedOverflow.set( i );
+            }
+         }
+      }
+      if ( unresolved != 0L || unresolvedOverflow != null )
+         throw new UnresolvedDependenciesException( obj, AbstractInjectionStrategy.selectMembers( members, unresolved, unresolvedOverflow ) );
+      if ( metrics != null )
+         metrics.classInjected( clazz, size, System.nanoTime() - start );
+      
+      if ( log.isLoggable(Level.FINE) )
+         log.fine( "Completed processing object [" + Utils.getName( obj ) + "]. Class " + clazz.getName() );
+      return true;
+   }
+   
+   /**
+    * Get the merged plan for a class, computing and caching it if necessary. It is not cached
+    * if any of the strategies has class caching disabled, since their plans may change
+    */
+   private MergedPlan getMergedPlan( Class<?> clazz )
+   {
+      MergedPlan retval = mergedPlans.get( clazz );
+      if ( retval == null )
+      {
+         boolean cacheable = true;
+         Map<Object, Dependency> members = new LinkedHashMap<Object, Dependency>();
+         Map<Dependency, AbstractInjectionStrategy> owners = new HashMap<Dependency, AbstractInjectionStrategy>();
+         Class<?> firstInjectedClass = null;
+         for ( AbstractInjectionStrategy strat: planned )
+         {
+            cacheable &= strat.isClassCaching();
+            InjectionPlan plan = strat.getInjectionPlan( clazz );
+            for ( Dependency dep: plan.getDependencies() )
+            {
+               // A later strategy takes over a member, keeping its place in the plan
+               Object key = dep.getMember() != null ? dep.getMember() : dep;
+               members.put( key, dep );
+               owners.put( dep, strat );
+            }
+            Class<?> first = plan.getFirstInjectedClass();
+            if ( first != null && ( firstInjectedClass == null || first.isAssignableFrom( firstInjectedClass ) ) )
+               firstInjectedClass = first;
+         }
+         
+         InjectionPlan merged = InjectionPlan.create( members.values(), firstInjectedClass );
+         AbstractInjectionStrategy[] mergedOwners = new AbstractInjectionStrategy[ merged.size() ];
+         for ( int i = 0; i < mergedOwners.length; i++ )
+            mergedOwners[ i ] = owners.get( merged.getDependencies().get( i ) );
+         retval = new MergedPlan( merged, mergedOwners );
+         
+         if ( cacheable )
+         {
+            MergedPlan existing = mergedPlans.putIfAbsent( clazz, retval );
+            if ( existing != null )
+               retval = existing;
+         }
+      }
+      return retval;
+   }
+   
+   /**
+    * Set the maximum number of injections that may be nested on one thread when this strategy 
+    * executes merged plans. Defaults to 128
+    * @see AbstractInjectionStrategy#setMaxInjectionDepth(int)
+    */
+   public void setMaxInjectionDepth( int depth )
+   {
+      if ( depth < 1 )
+         throw new IllegalArgumentException( "Maximum injection depth must be at least 1" );
+      maxInjectionDepth = depth;
+   }
+   
    public void setStrategies( List<InjectionStrategy> list )
    {
       strategies = list;
+      planned = new ArrayList<AbstractInjectionStrategy>();
+      unplanned = new ArrayList<InjectionStrategy>();
+      for ( InjectionStrategy strat: list )
+      {
+         if ( strat instanceof AbstractInjectionStrategy )
+            planned.add( (AbstractInjectionStrategy) strat );
+         else
+            unplanned.add( strat );
+      }
+      mergedPlans = new ConcurrentHashMap<Class<?>, MergedPlan>();
+   }
+   
+   /**
+    * A merged InjectionPlan, and for each of its Dependencies the strategy that is to resolve it
+    */
+   private static final class MergedPlan
+   {
+      final InjectionPlan plan;
+      final AbstractInjectionStrategy[] owners;
+      
+      MergedPlan( InjectionPlan plan, AbstractInjectionStrategy[] owners )
+      {
+         this.plan = plan;
+         this.owners = owners;
+      }
    }
 }
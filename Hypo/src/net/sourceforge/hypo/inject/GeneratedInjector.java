@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject;
+
+import java.util.List;
+
+import net.sourceforge.hypo.inject.dependency.Dependency;
+
+/**
+ * Implemented by the injector classes that the InjectorProcessor generates at compile
+ * time for each class declaring members annotated with net.sourceforge.hypo.annotation.Dependency. 
+ * A generated injector for class Foo is named Foo$$HypoInjector and lives in the same package, 
+ * which allows it to write the annotated members directly rather than by reflection.
+ */
+public interface GeneratedInjector
+{
+   /**
+    * Suffix appended to the binary name of a class to give the name of its generated injector
+    */
+   String CLASS_NAME_SUFFIX = "$$HypoInjector";
+   
+   /**
+    * @return a List of Dependencies for the members declared directly on the class
+    * that this injector was generated for. The list is equivalent to that returned by
+    * AnnotationInjectionStrategy.selectDependencies() for the same class
+    */
+   List<Dependency> createDependencies();
+}
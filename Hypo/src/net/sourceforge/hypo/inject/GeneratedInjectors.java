@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.hypo.inject.dependency.Dependency;
+
+/**
+ * Locates and instantiates the GeneratedInjector (if any) for a class. The outcome 
+ * of the lookup, including the absence of a generated injector, is remembered per class
+ */
+final class GeneratedInjectors
+{
+   private static Logger log = Logger.getLogger( GeneratedInjectors.class.getCanonicalName() );
+   
+   private static final ClassValue<GeneratedInjector> injectors = new ClassValue<GeneratedInjector>()
+   {
+      protected GeneratedInjector computeValue( Class<?> clazz )
+      {
+         return loadInjector( clazz );
+      }
+   };
+   
+   private GeneratedInjectors()
+   {
+   }
+   
+   /**
+    * @param clazz a class which may have had an injector generated for it at compile time
+    * @return the Dependencies supplied by the generated injector for clazz, or null if 
+    * there is no generated injector for clazz
+    */
+   static List<Dependency> findDependencies( Class<?> clazz )
+   {
+      GeneratedInjector injector = injectors.get( clazz );
+      return injector != null ? injector.createDependencies() : null;
+   }
+   
+   private static GeneratedInjector loadInjector( Class<?> clazz )
+   {
+      ClassLoader loader = clazz.getClassLoader();
+      if ( loader == null || clazz.isInterface() || clazz.isArray() || clazz.isPrimitive() )
+         return null;
+      
+      String injectorName = clazz.getName() + GeneratedInjector.CLASS_NAME_SUFFIX;
+      try
+      {
+         Class<?> injectorClass = Class.forName( injectorName, true, loader );
+         GeneratedInjector injector = (GeneratedInjector) injectorClass.getDeclaredConstructor().newInstance();
+         if ( log.isLoggable(Level.FINE) )
+            log.fine( "Using generated injector " + injectorName + " for class " + clazz.getName() );
+         return injector;
+      }
+      catch( ClassNotFoundException cnfe )
+      {
+         return null;
+      }
+      catch( Exception e )
+      {
+         throw new RuntimeException( "Could not instantiate generated injector " + injectorName, e );
+      }
+   }
+}
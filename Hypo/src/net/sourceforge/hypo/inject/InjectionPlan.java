@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import net.sourceforge.hypo.inject.dependency.Dependency;
+
+/**
+ * The complete, ordered set of Dependencies to be satisfied for an instance of a particular
+ * concrete class, merged from every level of that class's hierarchy. A plan is computed once 
+ * per class and can then be executed in a single pass, without walking the hierarchy again.
+ * Plans are immutable and may be shared freely between threads.
+ */
+public final class InjectionPlan
+{
+   /**
+    * A plan with no Dependencies, shared by all classes that do not require injection 
+    */
+   public static final InjectionPlan EMPTY = new InjectionPlan( new Dependency[0], null );
+   
+   private final Dependency[] dependencies;
+   private final List<Dependency> dependencyList;
+   private final Class<?> firstInjectedClass;
+   
+   private InjectionPlan( Dependency[] dependencies, Class<?> firstInjectedClass )
+   {
+      this.dependencies = dependencies;
+      this.dependencyList = Collections.unmodifiableList( Arrays.asList( dependencies ) );
+      this.firstInjectedClass = firstInjectedClass;
+   }
+   
+   /**
+    * @param dependencies the Dependencies making up the plan, in the order in which they 
+    * are to be satisfied
+    * @param firstInjectedClass the topmost class in the hierarchy that contributed Dependencies
+    * @return a plan for the given Dependencies
+    */
+   static InjectionPlan create( Collection<Dependency> dependencies, Class<?> firstInjectedClass )
+   {
+      if ( dependencies.isEmpty() )
+         return EMPTY;
+      return new InjectionPlan( dependencies.toArray( new Dependency[dependencies.size()] ), firstInjectedClass );
+   }
+   
+   /**
+    * @return true if the plan has no Dependencies, i.e. instances of the class are 
+    * ineligible for dependency injection
+    */
+   public boolean isEmpty()
+   {
+      return dependencies.length == 0;
+   }
+   
+   /**
+    * @return the number of Dependencies in the plan
+    */
+   public int size()
+   {
+      return dependencies.length;
+   }
+   
+   /**
+    * @return the topmost class in the hierarchy (i.e. the one nearest to java.lang.Object)
+    * that declares any of the Dependencies in the plan. This is the first class to be
+    * initialized during construction of an instance, and so the earliest point at which 
+    * the whole instance can be injected. Null if the plan is empty
+    */
+   public Class<?> getFirstInjectedClass()
+   {
+      return firstInjectedClass;
+   }
+   
+   /**
+    * @return an unmodifiable List of the Dependencies in the plan, in order
+    */
+   public List<Dependency> getDependencies()
+   {
+      return dependencyList;
+   }
+   
+   public String toString()
+   {
+      return "InjectionPlan" + dependencyList;
+   }
+}
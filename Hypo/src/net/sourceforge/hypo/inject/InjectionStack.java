@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject;
+
+import java.util.Arrays;
+
+/**
+ * The classes of the instances currently being injected on a thread, innermost last. An
+ * injection that would start a second injection of a class already on the stack is a cycle in
+ * the dependencies, and is reported with the path of classes that make up the cycle, rather 
+ * than being allowed to recurse until the thread's stack overflows. The stack is shared by all 
+ * InjectionStrategies on the thread, so cycles that pass through more than one are caught too.
+ * 
+ * Injection stacks are shallow, so a linear scan of a small array is cheaper than hashing.
+ */
+final class InjectionStack
+{
+   /**
+    * The default maximum number of nested injections on one thread
+    */
+   static final int DEFAULT_MAX_DEPTH = 128;
+   
+   private static final ThreadLocal<InjectionStack> STACKS = new ThreadLocal<InjectionStack>()
+   {
+      protected InjectionStack initialValue()
+      {
+         return new InjectionStack();
+      }
+   };
+   
+   private Class<?>[] classes = new Class<?>[ 8 ];
+   private int depth;
+   
+   private InjectionStack()
+   {
+   }
+   
+   /**
+    * @return the injection stack of the calling thread
+    */
+   static InjectionStack current()
+   {
+      return STACKS.get();
+   }
+   
+   /**
+    * Note the start of the injection of an instance of a class. Must be matched by a call to
+    * pop() once it has finished, unless an exception is thrown
+    * @param clazz the class of the instance about to be injected
+    * @param maxDepth the maximum number of nested injections allowed, including this one
+    * @throws IllegalStateException if an instance of clazz is already being injected on this
+    * thread, or if the injection would exceed maxDepth
+    */
+   void push( Class<?> clazz, int maxDepth ) throws IllegalStateException
+   {
+      for ( int i = 0; i < depth; i++ )
+      {
+         if ( classes[ i ] == clazz )
+            throw new IllegalStateException( "Cyclic dependency detected on attempt to inject an instance of " + clazz 
+                     + ": " + describePath( i, clazz ) );
+      }
+      if ( depth >= maxDepth )
+         throw new IllegalStateException( "Maximum injection depth of " + maxDepth + " exceeded on attempt to inject an instance of " 
+                  + clazz + ": " + describePath( 0, clazz ) );
+      
+      if ( depth == classes.length )
+         classes = Arrays.copyOf( classes, depth * 2 );
+      classes[ depth++ ] = clazz;
+   }
+   
+   /**
+    * Note that the innermost injection has finished
+    */
+   void pop()
+   {
+      classes[ --depth ] = null;
+   }
+   
+   /**
+    * @return the classes on the stack from index from upwards, followed by clazz, e.g. "A -> B -> A"
+    */
+   private String describePath( int from, Class<?> clazz )
+   {
+      StringBuilder buff = new StringBuilder();
+      for ( int i = from; i < depth; i++ )
+      {
+         buff.append( classes[ i ].getName() );
+         buff.append( " -> " );
+      }
+      buff.append( clazz.getName() );
+      return buff.toString();
+   }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+import net.sourceforge.hypo.inject.dependency.Dependency;
+import net.sourceforge.hypo.inject.resolver.DependencyResolver;
+
+/**
+ * The InvocationHandler of a proxy injected in place of a lazy Dependency of interface type.
+ * The first call to any interface method resolves the Dependency against the target, which 
+ * also replaces the proxy in the target with the real value, and every call is then forwarded
+ * to that value. equals() and hashCode() are those of the proxy itself and never resolve.
+ */
+final class LazyProxy implements InvocationHandler
+{
+   private final Dependency dependency;
+   private final DependencyResolver resolver;
+   private Object target;
+   private volatile Object value;
+   private volatile boolean resolved;
+   
+   private LazyProxy( Dependency dependency, DependencyResolver resolver, Object target )
+   {
+      this.dependency = dependency;
+      this.resolver = resolver;
+      this.target = target;
+   }
+   
+   /**
+    * @param dependency a Dependency whose type is an interface
+    * @param resolver the DependencyResolver to resolve it with on first use
+    * @param target the object the Dependency belongs to
+    * @return a proxy implementing the type of the Dependency
+    */
+   static Object create( Dependency dependency, DependencyResolver resolver, Object target )
+   {
+      Class<?> type = dependency.getType();
+      return Proxy.newProxyInstance( type.getClassLoader(), new Class<?>[] { type }, new LazyProxy( dependency, resolver, target ) );
+   }
+   
+   public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable
+   {
+      if ( method.getDeclaringClass() == Object.class )
+      {
+         String name = method.getName();
+         if ( name.equals( "equals" ) )
+            return proxy == args[0];
+         if ( name.equals( "hashCode" ) )
+            return System.identityHashCode( proxy );
+         if ( name.equals( "toString" ) && !resolved )
+            return "Unresolved lazy proxy for " + dependency;
+      }
+      
+      try
+      {
+         return method.invoke( getValue(), args );
+      }
+      catch( InvocationTargetException e )
+      {
+         throw e.getCause();
+      }
+   }
+   
+   private Object getValue()
+   {
+      if ( !resolved )
+      {
+         synchronized( this )
+         {
+            if ( !resolved )
+            {
+               Capture capture = new Capture( dependency );
+               if ( !resolver.resolve( capture, target ) )
+                  throw new UnresolvedDependenciesException( target, Collections.singletonList( dependency ) );
+               value = capture.take();
+               resolved = true;
+               target = null;
+            }
+         }
+      }
+      return value;
+   }
+   
+   /**
+    * Passes on the value a resolver injects, and keeps it until it is taken. A Capture may be 
+    * kept as a key in a CompositeDependencyResolver's routing table, so it must not go on 
+    * holding the value
+    */
+   private static class Capture implements Dependency
+   {
+      private final Dependency dependency;
+      private Object value;
+      
+      Capture( Dependency dependency )
+      {
+         this.dependency = dependency;
+      }
+      
+      public String getAssociatedName()
+      {
+         return dependency.getAssociatedName();
+      }
+      
+      public Class<?> getType()
+      {
+         return dependency.getType();
+      }
+      
+      public Member getMember()
+      {
+         return dependency.getMember();
+      }
+      
+      public void injectValue( Object targetObject, Object toInject )
+      {
+         value = toInject;
+         dependency.injectValue( targetObject, toInject );
+      }
+      
+      Object take()
+      {
+         Object retval = value;
+         value = null;
+         return retval;
+      }
+      
+      public boolean equals( Object obj )
+      {
+         return obj instanceof Capture && dependency.equals( ( (Capture) obj ).dependency );
+      }
+      
+      public int hashCode()
+      {
+         return dependency.hashCode();
+      }
+      
+      public String toString()
+      {
+         return dependency.toString();
+      }
+   }
+}
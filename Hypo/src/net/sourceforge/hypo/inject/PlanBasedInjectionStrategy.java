@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject;
+
+/**
+ * An InjectionStrategy that works from a precomputed InjectionPlan per concrete class. 
+ * Exposing the plan allows callers such as the DependencyInjectionAspect to decide up front
+ * where and whether injection is needed for an instance.
+ */
+public interface PlanBasedInjectionStrategy extends InjectionStrategy
+{
+   /**
+    * @param clazz the concrete class of instances to be injected
+    * @return the InjectionPlan that performInjection( obj ) executes for instances of clazz.
+    * Never null; InjectionPlan.EMPTY signifies that instances of clazz are ineligible for
+    * dependency injection
+    */
+   InjectionPlan getInjectionPlan( Class<?> clazz );
+   
+   /**
+    * @return true if the InjectionPlans cover everything that performInjection( obj ) injects,
+    * so that callers may rely on them to decide where injection is needed. Defaults to true
+    */
+   default boolean isCompletelyPlanned()
+   {
+      return true;
+   }
+   
+   /**
+    * @return true if getInjectionPlan() returns a cached plan, so that it is cheap enough to
+    * call for each class in an instance's hierarchy. Defaults to true
+    */
+   default boolean isPlanCached()
+   {
+      return true;
+   }
+   
+   /**
+    * Compute and cache InjectionPlans ahead of time. The DependencyInjectionAspect calls this 
+    * before ready() returns. Defaults to doing nothing
+    * @return the number of classes whose InjectionPlans are now cached
+    */
+   default int warmUp()
+   {
+      return 0;
+   }
+   
+   /**
+    * Persist the cached InjectionPlans, if the strategy has somewhere to persist them. The
+    * DependencyInjectionAspect calls this when it is stopped. Defaults to doing nothing
+    * @return the number of classes whose InjectionPlans were persisted
+    */
+   default int savePlanCache()
+   {
+      return 0;
+   }
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.hypo.inject.dependency.Dependency;
+import net.sourceforge.hypo.inject.dependency.LazyDependency;
+
+/**
+ * A file of the Dependencies found for each class, so that they can be re-created on a later 
+ * run without searching the class for them. The file is read through a memory mapping: opening
+ * it only indexes the entries by class name, and an entry is decoded when its class is first 
+ * looked up, provided that the stamp of the class file still matches the one recorded for it. 
+ * The stamp is the modification time and length of the class file or, for a class loaded from
+ * a jar, of the jar, so checking it costs at most a file system lookup per class and never 
+ * reads the class. Classes that were not loaded from the file system are not cached.
+ * 
+ * Layout, all numbers big-endian:
+ * <pre>
+ * int magic, int version, string signature, int entryCount,
+ * entryCount x { string className, int entryLength, 
+ *                entryLength bytes of { long classFileStamp, short memberCount, 
+ *                                       memberCount x { byte kind, byte flags, string memberName, 
+ *                                                       [string parameterType, if kind is METHOD],
+ *                                                       string associatedName } } }
+ * </pre>
+ * where flags has the bit LAZY set for a LazyDependency, and a string is an int byte count (-1 for null) followed by that many bytes of UTF-8.
+ */
+final class PlanCacheFile
+{
+   static final int MAGIC = 0x4879706F;
+   static final int VERSION = 3;
+   static final byte FIELD = 'F';
+   static final byte METHOD = 'M';
+   static final byte LAZY = 1;
+   
+   private static final Charset UTF8 = Charset.forName( "UTF-8" );
+   private static Logger log = Logger.getLogger( PlanCacheFile.class.getCanonicalName() );
+   private static final Map<String,Class<?>> PRIMITIVES = new HashMap<String,Class<?>>();
+   private static final ConcurrentMap<String,Long> ARCHIVE_STAMPS = new ConcurrentHashMap<String,Long>();
+   
+   static
+   {
+      for ( Class<?> type : new Class<?>[] { boolean.class, byte.class, char.class, short.class, 
+                                             int.class, long.class, float.class, double.class } )
+         PRIMITIVES.put( type.getName(), type );
+   }
+   
+   private final ByteBuffer buffer;
+   private final Map<String,int[]> index;
+   
+   private PlanCacheFile( ByteBuffer buffer, Map<String,int[]> index )
+   {
+      this.buffer = buffer;
+      this.index = index;
+   }
+   
+   /**
+    * @param file a file previously written by write()
+    * @param signature the signature the file must have been written with
+    * @return the opened file; or null if it does not exist, is not a plan cache file, or was
+    * written by a different version or with a different signature
+    */
+   static PlanCacheFile open( File file, String signature )
+   {
+      if ( !file.isFile() )
+         return null;
+      try
+      {
+         RandomAccessFile raf = new RandomAccessFile( file, "r" );
+         ByteBuffer buffer;
+         try
+         {
+            // The mapping stays valid after the channel is closed
+            buffer = raf.getChannel().map( FileChannel.MapMode.READ_ONLY, 0, raf.length() );
+         }
+         finally
+         {
+            raf.close();
+         }
+         
+         if ( buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION 
+                  || !signature.equals( readString( buffer ) ) )
+         {
+            log.info( "Ignoring injection plan cache " + file + ": written by a different version or configuration." );
+            return null;
+         }
+         
+         int count = buffer.getInt();
+         Map<String,int[]> index = new HashMap<String,int[]>( count * 2 );
+         for ( int i = 0; i < count; i++ )
+         {
+            String className = readString( buffer );
+            int length = buffer.getInt();
+            index.put( className, new int[] { buffer.position(), length } );
+            buffer.position( buffer.position() + length );
+         }
+         return new PlanCacheFile( buffer, index );
+      }
+      catch( IOException e )
+      {
+         log.log( Level.WARNING, "Could not read injection plan cache " + file + ".", e );
+      }
+      catch( RuntimeException e )
+      {
+         log.log( Level.WARNING, "Ignoring corrupt injection plan cache " + file + ".", e );
+      }
+      return null;
+   }
+   
+   /**
+    * @return the number of entries in the file
+    */
+   int size()
+   {
+      return index.size();
+   }
+   
+   /**
+    * @param clazz a class
+    * @return the members recorded for the class, if its class file is unchanged since they
+    * were recorded; otherwise null, including if the entry is corrupt
+    */
+   List<MemberDescriptor> lookup( Class<?> clazz )
+   {
+      int[] location = index.get( clazz.getName() );
+      if ( location == null )
+         return null;
+      
+      try
+      {
+         ByteBuffer entry = buffer.duplicate();
+         entry.position( location[0] );
+         if ( entry.getLong() != stampClassFile( clazz ) )
+         {
+            if ( log.isLoggable(Level.FINE) )
+               log.fine( "Cached injection plan for " + clazz.getName() + " is stale." );
+            return null;
+         }
+         
+         int count = entry.getShort();
+         List<MemberDescriptor> retval = new ArrayList<MemberDescriptor>( count );
+         for ( int i = 0; i < count; i++ )
+         {
+            byte kind = entry.get();
+            boolean lazy = ( entry.get() & LAZY ) != 0;
+            String name = readString( entry );
+            String parameterType = kind == METHOD ? readString( entry ) : null;
+            retval.add( new MemberDescriptor( kind, lazy, name, parameterType, readString( entry ) ) );
+         }
+         return retval;
+      }
+      catch( RuntimeException e )
+      {
+         log.log( Level.WARNING, "Ignoring corrupt cached injection plan for " + clazz.getName() + ".", e );
+         return null;
+      }
+   }
+   
+   /**
+    * Write a plan cache file, replacing any existing file atomically where the platform allows
+    * @param file the file to write
+    * @param signature identifies the configuration the entries were produced by
+    * @param entries the Dependencies of each class. Classes whose class file cannot be found,
+    * or with a Dependency that is not a field or a single-argument method, are left out
+    * @param previous entries from a previously opened file to carry over for any class not in 
+    * entries, or null
+    * @return the number of entries written
+    */
+   static int write( File file, String signature, Map<Class<?>,List<Dependency>> entries, PlanCacheFile previous ) throws IOException
+   {
+      Map<String,byte[]> encoded = new HashMap<String,byte[]>();
+      for ( Map.Entry<Class<?>,List<Dependency>> entry : entries.entrySet() )
+      {
+         byte[] bytes = encode( entry.getKey(), entry.getValue() );
+         if ( bytes != null )
+            encoded.put( entry.getKey().getName(), bytes );
+      }
+      if ( previous != null )
+      {
+         for ( Map.Entry<String,int[]> entry : previous.index.entrySet() )
+         {
+            if ( !encoded.containsKey( entry.getKey() ) )
+            {
+               byte[] bytes = new byte[ entry.getValue()[1] ];
+               ByteBuffer source = previous.buffer.duplicate();
+               source.position( entry.getValue()[0] );
+               source.get( bytes );
+               encoded.put( entry.getKey(), bytes );
+            }
+         }
+      }
+      
+      File dir = file.getAbsoluteFile().getParentFile();
+      File temp = File.createTempFile( file.getName(), ".tmp", dir );
+      try
+      {
+         DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( temp ) ) );
+         try
+         {
+            out.writeInt( MAGIC );
+            out.writeInt( VERSION );
+            writeString( out, signature );
+            out.writeInt( encoded.size() );
+            for ( Map.Entry<String,byte[]> entry : encoded.entrySet() )
+            {
+               writeString( out, entry.getKey() );
+               out.writeInt( entry.getValue().length );
+               out.write( entry.getValue() );
+            }
+         }
+         finally
+         {
+            out.close();
+         }
+         try
+         {
+            Files.move( temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+         }
+         catch( IOException e )
+         {
+            Files.move( temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+         }
+      }
+      finally
+      {
+         temp.delete();
+      }
+      return encoded.size();
+   }
+   
+   private static byte[] encode( Class<?> clazz, List<Dependency> dependencies ) throws IOException
+   {
+      long stamp = stampClassFile( clazz );
+      if ( stamp < 0 || dependencies.size() > Short.MAX_VALUE )
+         return null;
+      
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream( bytes );
+      out.writeLong( stamp );
+      out.writeShort( dependencies.size() );
+      for ( Dependency dep : dependencies )
+      {
+         Member member = dep.getMember();
+         if ( member == null || member.getDeclaringClass() != clazz )
+            return null;
+         byte flags = dep instanceof LazyDependency ? LAZY : 0;
+         if ( member instanceof Field )
+         {
+            out.writeByte( FIELD );
+            out.writeByte( flags );
+            writeString( out, member.getName() );
+         }
+         else if ( member instanceof Method && ( (Method) member ).getParameterTypes().length == 1 )
+         {
+            out.writeByte( METHOD );
+            out.writeByte( flags );
+            writeString( out, member.getName() );
+            writeString( out, ( (Method) member ).getParameterTypes()[0].getName() );
+         }
+         else
+            return null;
+         writeString( out, dep.getAssociatedName() );
+      }
+      out.flush();
+      return bytes.toByteArray();
+   }
+   
+   /**
+    * @return a stamp that changes whenever the class file of the class does: the modification 
+    * time and length of the class file, or of the jar the class was loaded from, which is 
+    * looked up once for all of its classes. -1 if the class was not loaded from the file system
+    */
+   static long stampClassFile( Class<?> clazz )
+   {
+      try
+      {
+         ProtectionDomain domain = clazz.getProtectionDomain();
+         CodeSource source = domain != null ? domain.getCodeSource() : null;
+         URL location = source != null ? source.getLocation() : null;
+         if ( location == null || !"file".equals( location.getProtocol() ) )
+            return -1;
+         
+         File root = new File( location.toURI() );
+         if ( root.isDirectory() )
+            return stampFile( new File( root, clazz.getName().replace( '.', File.separatorChar ) + ".class" ) );
+         
+         Long stamp = ARCHIVE_STAMPS.get( root.getPath() );
+         if ( stamp == null )
+         {
+            stamp = stampFile( root );
+            ARCHIVE_STAMPS.putIfAbsent( root.getPath(), stamp );
+         }
+         return stamp;
+      }
+      catch( Exception e )
+      {
+         return -1;
+      }
+   }
+   
+   private static long stampFile( File file )
+   {
+      long modified = file.lastModified();
+      if ( modified <= 0 )
+         return -1;
+      return ( modified * 31 + file.length() ) & Long.MAX_VALUE;
+   }
+   
+   /**
+    * @param name a class name as returned by Class.getName(), including primitive type names
+    * @param loader the ClassLoader to load it with
+    * @return the class, which is not initialized
+    */
+   static Class<?> loadType( String name, ClassLoader loader ) throws ClassNotFoundException
+   {
+      Class<?> primitive = PRIMITIVES.get( name );
+      return primitive != null ? primitive : Class.forName( name, false, loader );
+   }
+   
+   private static void writeString( DataOutputStream out, String s ) throws IOException
+   {
+      if ( s == null )
+         out.writeInt( -1 );
+      else
+      {
+         byte[] bytes = s.getBytes( UTF8 );
+         out.writeInt( bytes.length );
+         out.write( bytes );
+      }
+   }
+   
+   private static String readString( ByteBuffer buffer )
+   {
+      int length = buffer.getInt();
+      if ( length < 0 )
+         return null;
+      byte[] bytes = new byte[ length ];
+      buffer.get( bytes );
+      return new String( bytes, UTF8 );
+   }
+   
+   /**
+    * A field or single-argument method recorded for a class, with the name associated with its 
+    * Dependency and whether it is lazy
+    */
+   static final class MemberDescriptor
+   {
+      final byte kind;
+      final boolean lazy;
+      final String name;
+      final String parameterType;
+      final String associatedName;
+      
+      MemberDescriptor( byte kind, boolean lazy, String name, String parameterType, String associatedName )
+      {
+         this.kind = kind;
+         this.lazy = lazy;
+         this.name = name;
+         this.parameterType = parameterType;
+         this.associatedName = associatedName;
+      }
+   }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject;
+
+import java.lang.reflect.Member;
+import java.util.Collections;
+
+import net.sourceforge.hypo.InjectionAware;
+import net.sourceforge.hypo.Provider;
+import net.sourceforge.hypo.inject.dependency.Dependency;
+import net.sourceforge.hypo.inject.dependency.ProviderDependency;
+import net.sourceforge.hypo.inject.resolver.CompositeDependencyResolver;
+import net.sourceforge.hypo.inject.resolver.DependencyResolver;
+import net.sourceforge.hypo.inject.resolver.InjectionFactory;
+import net.sourceforge.hypo.inject.resolver.ResolutionResult;
+import net.sourceforge.hypo.inject.resolver.SharedValueResolver;
+
+/**
+ * The Provider injected for a ProviderDependency. The first get() asks the DependencyResolver
+ * for a value shared by every target, and if there is one, keeps returning it. Otherwise, if the
+ * resolver is a CompositeDependencyResolver, it remembers which of its resolvers resolved the 
+ * element type and goes straight to that one on later calls, only walking the whole chain again 
+ * if it stops resolving. This is done whether or not the composite itself has routing enabled, 
+ * as the remembered resolver belongs to this Provider alone.
+ */
+final class ResolvingProvider implements Provider<Object>
+{
+   private static final Object NONE = new Object();
+   
+   private final ProviderDependency dependency;
+   private final DependencyResolver resolver;
+   private final Object target;
+   private volatile Object sharedValue = NONE;
+   private volatile DependencyResolver route;
+   
+   ResolvingProvider( ProviderDependency dependency, DependencyResolver resolver, Object target )
+   {
+      this.dependency = dependency;
+      this.resolver = resolver;
+      this.target = target;
+   }
+   
+   public Object get()
+   {
+      Object shared = sharedValue;
+      if ( shared != NONE )
+         return shared;
+      
+      DependencyResolver current = route;
+      if ( current == null )
+      {
+         if ( resolver instanceof SharedValueResolver )
+         {
+            ResolutionResult result = ( (SharedValueResolver) resolver ).resolveShared( dependency.getElementDependency() );
+            if ( result != null && result.isResolved() && !( result.getValueToInject() instanceof InjectionFactory ) )
+            {
+               Object value = result.getValueToInject();
+               notify( value );
+               sharedValue = value;
+               return value;
+            }
+         }
+         return resolveAndRoute();
+      }
+      
+      Capture capture = new Capture( dependency.getElementDependency() );
+      if ( current.resolve( capture, target ) )
+         return notify( capture.take() );
+      return resolveAndRoute();
+   }
+   
+   /**
+    * Resolve through the whole resolver chain, and remember which resolver in it succeeded
+    */
+   private Object resolveAndRoute()
+   {
+      Capture capture = new Capture( dependency.getElementDependency() );
+      DependencyResolver resolvedBy;
+      if ( resolver instanceof CompositeDependencyResolver )
+         resolvedBy = ( (CompositeDependencyResolver) resolver ).resolveRoute( capture, target );
+      else
+         resolvedBy = resolver.resolve( capture, target ) ? resolver : null;
+      
+      if ( resolvedBy == null )
+         throw new UnresolvedDependenciesException( target, Collections.<Dependency>singletonList( dependency ) );
+      route = resolvedBy;
+      return notify( capture.take() );
+   }
+   
+   private Object notify( Object value )
+   {
+      if ( value instanceof InjectionAware )
+         ( (InjectionAware) value ).beforeInjection( target, dependency );
+      return value;
+   }
+   
+   public String toString()
+   {
+      return "Provider for " + dependency.getElementDependency();
+   }
+   
+   /**
+    * Keeps the value a resolver injects until it is taken. A Capture may be kept as a key in a 
+    * CompositeDependencyResolver's routing table, so it must not go on holding the value
+    */
+   private static class Capture implements Dependency
+   {
+      private final Dependency dependency;
+      private Object value;
+      
+      Capture( Dependency dependency )
+      {
+         this.dependency = dependency;
+      }
+      
+      public String getAssociatedName()
+      {
+         return dependency.getAssociatedName();
+      }
+      
+      public Class<?> getType()
+      {
+         return dependency.getType();
+      }
+      
+      public Member getMember()
+      {
+         return dependency.getMember();
+      }
+      
+      public void injectValue( Object targetObject, Object toInject )
+      {
+         value = toInject;
+      }
+      
+      Object take()
+      {
+         Object retval = value;
+         value = null;
+         return retval;
+      }
+      
+      public boolean equals( Object obj )
+      {
+         return obj instanceof Capture && dependency.equals( ( (Capture) obj ).dependency );
+      }
+      
+      public int hashCode()
+      {
+         return dependency.hashCode();
+      }
+      
+      public String toString()
+      {
+         return dependency.toString();
+      }
+   }
+}
@@ -19,8 +19,11 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import net.sourceforge.hypo.inject.dependency.Dependency;
 
@@ -29,10 +32,14 @@ import net.sourceforge.hypo.inject.dependency.Dependency;
  * An InjectionStrategy that holds a list of fully qualified member names, and 
  * performs injection on any of those members which belong to the candidate instance's
  * class or superclasses
+ * 
+ * The members are indexed by their declaring class, so finding the members that apply to
+ * a class only involves walking that class's hierarchy, however many members are specified.
  */
 public class SpecifiedMemberInjectionStrategy extends AbstractInjectionStrategy
 {
    List<Dependency> specifiedMembers;   
+   private Map<Class<?>, BitSet> membersByDeclaringClass = Collections.emptyMap();
    
    /**
     * @param obj the candidate Object
@@ -43,21 +50,48 @@ public class SpecifiedMemberInjectionStrategy extends AbstractInjectionStrategy
     */
    public List<Dependency> selectDependencies( Class<?> clazz )
    {
-      List<Dependency> applicableMembers = Collections.emptyList();
-      for ( Dependency im: specifiedMembers )
-      {
-         Member member = im.getMember();
-         if ( member != null && member.getDeclaringClass().isAssignableFrom( clazz ) )
-         {
-        	if ( applicableMembers.isEmpty() )
-        		applicableMembers = new ArrayList<Dependency>();
-            applicableMembers.add( im );
-         }
-      }
+      BitSet applicable = null;
+      for ( Class<?> level = clazz; level != null; level = level.getSuperclass() )
+         applicable = addMembersDeclaredBy( level, applicable );
+      if ( applicable == null )
+         return Collections.emptyList();
       
+      // In the order in which they were specified
+      List<Dependency> applicableMembers = new ArrayList<Dependency>( applicable.cardinality() );
+      for ( int i = applicable.nextSetBit( 0 ); i >= 0; i = applicable.nextSetBit( i + 1 ) )
+         applicableMembers.add( specifiedMembers.get( i ) );
       return applicableMembers;
    }
+   
+   /**
+    * Add the indexes of the members declared by a class, or by any interface it implements,
+    * to a set
+    * @param applicable the indexes found so far, or null if there are none yet
+    * @return the updated set of indexes, or null if there are still none
+    */
+   private BitSet addMembersDeclaredBy( Class<?> clazz, BitSet applicable )
+   {
+      BitSet declared = membersByDeclaringClass.get( clazz );
+      if ( declared != null )
+      {
+         if ( applicable == null )
+            applicable = new BitSet();
+         applicable.or( declared );
+      }
+      for ( Class<?> iface: clazz.getInterfaces() )
+         applicable = addMembersDeclaredBy( iface, applicable );
+      return applicable;
+   }
 
+   /**
+    * The Dependencies are the specified members themselves, found without searching each class, 
+    * so there is nothing to gain from persisting them
+    */
+   protected String getPlanCacheSignature()
+   {
+      return null;
+   }
+   
    /**
     * Set the list of specified members that this SpecifiedMemberInjectionStrategy
     * should treat as dependencies. This is a list of Strings of the form
@@ -87,6 +121,22 @@ public class SpecifiedMemberInjectionStrategy extends AbstractInjectionStrategy
          }
          specifiedMembers.add( createDependency( member, "" ) );
       }
+      
+      Map<Class<?>, BitSet> index = new HashMap<Class<?>, BitSet>();
+      for ( int i = 0; i < specifiedMembers.size(); i++ )
+      {
+         Member member = specifiedMembers.get( i ).getMember();
+         if ( member == null )
+            continue;
+         BitSet declared = index.get( member.getDeclaringClass() );
+         if ( declared == null )
+         {
+            declared = new BitSet();
+            index.put( member.getDeclaringClass(), declared );
+         }
+         declared.set( i );
+      }
+      membersByDeclaringClass = index;
    }
    
    private static Field findField( Class<?> clazz, String name )
@@ -15,26 +15,46 @@
 
 package net.sourceforge.hypo.inject.dependency;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Basic implementation of DependencyFactory that knows how to create
- * Dependency objects for Fields and Simple Setter Methods only.
+ * Dependency objects for Fields and Simple Setter Methods only. The MethodHandle 
+ * used to inject each member is built once and shared by every Dependency created 
+ * for that member.
  */
 public class DefaultDependencyFactory implements DependencyFactory
 {
+   private ConcurrentMap<Member, MethodHandle> handles = new ConcurrentHashMap<Member, MethodHandle>();
+   
    public Dependency createDependency( Object obj, String name )
    {
       if ( obj instanceof Method )
       {
          Method m = (Method) obj;
-         return new SimpleSetterDependency( m, name );
+         MethodHandle invoker = handles.get( m );
+         if ( invoker == null )
+         {
+            invoker = SimpleSetterDependency.createInvoker( m );
+            handles.putIfAbsent( m, invoker );
+         }
+         return new SimpleSetterDependency( m, name, invoker );
       }
       else if ( obj instanceof Field )
       {
          Field f = (Field) obj;
-         return new FieldDependency( f, name );
+         MethodHandle setter = handles.get( f );
+         if ( setter == null )
+         {
+            setter = FieldDependency.createSetter( f );
+            handles.putIfAbsent( f, setter );
+         }
+         return new FieldDependency( f, name, setter );
       }
       else
          throw new IllegalArgumentException( "This implementation only supports fields and simple setter methods" );
@@ -15,8 +15,12 @@
 
 package net.sourceforge.hypo.inject.dependency;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Member;
+import java.lang.reflect.Modifier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,7 +34,10 @@ public class FieldDependency implements Dependency
 {
    private static Logger log = Logger.getLogger( FieldDependency.class.getCanonicalName() );
    
+   private static final MethodType SETTER_TYPE = MethodType.methodType( void.class, Object.class, Object.class );
+   
    private Field field;
+   private final MethodHandle setter;
    private String name = "";
    
    /**
@@ -39,12 +46,47 @@ public class FieldDependency implements Dependency
     * @param name an optional name for the dependency
     */
    public FieldDependency( Field field, String name )
+   {
+      this( field, name, createSetter( field ) );
+   }   
+   
+   /**
+    * Constructor
+    * @param field a java.lang.reflect.Field that has been identified as a dependency
+    * @param name an optional name for the dependency
+    * @param setter a MethodHandle of type (Object,Object)void that writes the field, 
+    * as returned by createSetter()
+    */
+   FieldDependency( Field field, String name, MethodHandle setter )
    {
       this.field = field;
-      this.field.setAccessible( true );
+      this.setter = setter;
       if ( name != null )
          this.name = name;
-   }   
+   }
+   
+   /**
+    * Build a MethodHandle that writes the specified instance field, adapted to
+    * the generic type (Object,Object)void so that it can be invoked exactly 
+    * without any per-call reflective access checks
+    * @param field an instance field
+    * @return a setter MethodHandle for the field
+    */
+   static MethodHandle createSetter( Field field )
+   {
+      try
+      {
+         field.setAccessible( true );
+         MethodHandle handle = MethodHandles.lookup().unreflectSetter( field );
+         if ( Modifier.isStatic( field.getModifiers() ) )
+            handle = MethodHandles.dropArguments( handle, 0, Object.class );
+         return handle.asType( SETTER_TYPE );
+      }
+      catch( IllegalAccessException e )
+      {
+         throw new RuntimeException( "Failed to create setter for instance field " + field, e );
+      }
+   }
 
    /**
     * @return the associated name
@@ -71,8 +113,8 @@ public class FieldDependency implements Dependency
    }
    
    /**
-    * Use reflection to satisfy the Dependency for 'targetObject' by reflectively
-    * setting its field value to be 'toInject'
+    * Satisfy the Dependency for 'targetObject' by setting its field value to be 
+    * 'toInject' through the pre-built setter MethodHandle
     * 
     * @param targetObject the Object whose dependency is being satisfied
     * @param toInject an object of the appropriate type that is being injected
@@ -86,16 +128,38 @@ public class FieldDependency implements Dependency
          {
             ( (InjectionAware) toInject ).beforeInjection( targetObject, this );            
          }
-         field.set( targetObject, toInject );
+         setter.invokeExact( targetObject, toInject );
          if ( log.isLoggable(Level.FINE) )
             log.fine( "Set field " + this + " on [" + Utils.getName( targetObject ) + "] to value [" + toInject + "]." );
       }
-      catch( Exception e )
+      catch( Error e )
+      {
+         throw e;
+      }
+      catch( Throwable t )
       {
-         throw new RuntimeException( "Failed to inject instance field " + field, e );
+         throw new RuntimeException( "Failed to inject instance field " + field, t );
       }
    }
 
+   /**
+    * Two FieldDependencies are equal if they represent the same field with the same associated name
+    */
+   public boolean equals( Object obj )
+   {
+      if ( obj == this )
+         return true;
+      if ( !( obj instanceof FieldDependency ) )
+         return false;
+      FieldDependency other = (FieldDependency) obj;
+      return field.equals( other.field ) && name.equals( other.name );
+   }
+   
+   public int hashCode()
+   {
+      return field.hashCode() * 31 + name.hashCode();
+   }
+   
    public String toString()
    {
       StringBuffer buff = new StringBuffer();
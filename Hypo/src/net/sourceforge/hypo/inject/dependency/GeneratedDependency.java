@@ -0,0 +1,163 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject.dependency;
+
+import java.lang.reflect.Member;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.hypo.InjectionAware;
+import net.sourceforge.hypo.inject.Utils;
+
+/**
+ * Superclass for the Dependency implementations emitted by generated injectors 
+ * (see net.sourceforge.hypo.inject.GeneratedInjector). Subclasses write the member 
+ * directly in setValue(); the underlying java.lang.reflect.Member is only looked up
+ * if it is actually asked for.
+ */
+public abstract class GeneratedDependency implements Dependency
+{
+   private static Logger log = Logger.getLogger( GeneratedDependency.class.getCanonicalName() );
+   
+   private Class<?> declaringClass;
+   private String memberName;
+   private Class<?> type;
+   private boolean setter;
+   private String name = "";
+   private volatile Member member;
+   
+   /**
+    * Constructor
+    * @param declaringClass the class declaring the member
+    * @param memberName the name of the field or setter method
+    * @param type the type of the field, or of the setter method's single parameter
+    * @param setter true if the member is a simple setter method; false if it is a field
+    * @param name an optional name for the dependency
+    */
+   protected GeneratedDependency( Class<?> declaringClass, String memberName, Class<?> type, boolean setter, String name )
+   {
+      this.declaringClass = declaringClass;
+      this.memberName = memberName;
+      this.type = type;
+      this.setter = setter;
+      if ( name != null )
+         this.name = name;
+   }
+   
+   /**
+    * Write the value directly to the member of the target object
+    * @param targetObject the Object whose dependency is being satisfied
+    * @param toInject the value to be injected
+    */
+   protected abstract void setValue( Object targetObject, Object toInject );
+   
+   /**
+    * @return the associated name
+    */
+   public String getAssociatedName()
+   {
+      return name;
+   }
+   
+   /**
+    * @return the type of the field or of the setter method's single parameter
+    */
+   public Class<?> getType()
+   {
+      return type;
+   }
+   
+   /**
+    * @return the underlying java.lang.reflect.Field or Method, looked up on first request
+    */
+   public Member getMember()
+   {
+      Member retval = member;
+      if ( retval == null )
+      {
+         try
+         {
+            if ( setter )
+               retval = declaringClass.getDeclaredMethod( memberName, type );
+            else
+               retval = declaringClass.getDeclaredField( memberName );
+         }
+         catch( Exception e )
+         {
+            throw new RuntimeException( "Could not find member " + memberName + " on class " + declaringClass, e );
+         }
+         member = retval;
+      }
+      return retval;
+   }
+   
+   /**
+    * Satisfy the Dependency for 'targetObject' by calling the generated setValue()
+    * 
+    * @param targetObject the Object whose dependency is being satisfied
+    * @param toInject an object of the appropriate type that is being injected
+    * to satisfy the dependency
+    */
+   public void injectValue( Object targetObject, Object toInject )
+   {
+      if ( toInject instanceof InjectionAware )
+      {
+         ( (InjectionAware) toInject ).beforeInjection( targetObject, this );            
+      }
+      setValue( targetObject, toInject );
+      if ( log.isLoggable(Level.FINE) )
+         log.fine( "Injected " + this + " on [" + Utils.getName( targetObject ) + "] with value [" + toInject + "]." );
+   }
+   
+   /**
+    * Two GeneratedDependencies are equal if they represent the same member with the same associated name.
+    * The type distinguishes overloaded setter methods
+    */
+   public boolean equals( Object obj )
+   {
+      if ( obj == this )
+         return true;
+      if ( !( obj instanceof GeneratedDependency ) )
+         return false;
+      GeneratedDependency other = (GeneratedDependency) obj;
+      return declaringClass == other.declaringClass && setter == other.setter && type == other.type && 
+             memberName.equals( other.memberName ) && name.equals( other.name );
+   }
+   
+   public int hashCode()
+   {
+      int retval = ( declaringClass.hashCode() * 31 + memberName.hashCode() ) * 31 + name.hashCode();
+      retval = retval * 31 + type.hashCode();
+      return retval * 31 + ( setter ? 1 : 0 );
+   }
+   
+   public String toString()
+   {
+      StringBuffer buff = new StringBuffer();
+      buff.append( setter ? "[Setter " : "[Field " );
+      buff.append( memberName );
+      if ( setter )
+         buff.append( "()" );
+      if ( name != null && name.length() > 0 )
+      {
+         buff.append( " @\"" );
+         buff.append( name );
+         buff.append( "\"" );
+      }
+      buff.append( ']' );
+      return buff.toString();
+   }
+}
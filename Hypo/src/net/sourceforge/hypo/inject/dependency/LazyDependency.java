@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject.dependency;
+
+import java.lang.reflect.Member;
+
+/**
+ * Marks a Dependency to be resolved lazily. If its type is an interface, the InjectionStrategy 
+ * injects a proxy in its place, which resolves the real value the first time one of its methods
+ * is called; otherwise it is resolved as normal. All other behaviour is that of the wrapped 
+ * Dependency.
+ */
+public class LazyDependency implements Dependency
+{
+   private final Dependency dependency;
+   
+   public LazyDependency( Dependency dependency )
+   {
+      this.dependency = dependency;
+   }
+   
+   /**
+    * @return the Dependency that this one makes lazy
+    */
+   public Dependency getDependency()
+   {
+      return dependency;
+   }
+   
+   public String getAssociatedName()
+   {
+      return dependency.getAssociatedName();
+   }
+   
+   public Class<?> getType()
+   {
+      return dependency.getType();
+   }
+   
+   public Member getMember()
+   {
+      return dependency.getMember();
+   }
+   
+   public void injectValue( Object targetObject, Object toInject )
+   {
+      dependency.injectValue( targetObject, toInject );
+   }
+   
+   public boolean equals( Object obj )
+   {
+      return obj instanceof LazyDependency && dependency.equals( ( (LazyDependency) obj ).dependency );
+   }
+   
+   public int hashCode()
+   {
+      return dependency.hashCode();
+   }
+   
+   public String toString()
+   {
+      return "Lazy" + dependency;
+   }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject.dependency;
+
+import java.lang.reflect.Member;
+
+/**
+ * A Dependency declared as a Provider&lt;T&gt; or Supplier&lt;T&gt;, for which the 
+ * InjectionStrategy injects a Provider that resolves the element type T on demand. The 
+ * element Dependency describes T to DependencyResolvers: it has the same member and 
+ * associated name as the declared Dependency, but the type T.
+ */
+public class ProviderDependency implements Dependency
+{
+   private final Dependency dependency;
+   private final Dependency elementDependency;
+   
+   /**
+    * @param dependency the declared Dependency, whose type is Provider or Supplier
+    * @param elementType the type argument of the declared type
+    */
+   public ProviderDependency( Dependency dependency, Class<?> elementType )
+   {
+      this.dependency = dependency;
+      this.elementDependency = new ElementDependency( dependency, elementType );
+   }
+   
+   /**
+    * @return the Dependency for the element type, which values are resolved for. Values are 
+    * delivered through the injected Provider, so its injectValue() must not be called
+    */
+   public Dependency getElementDependency()
+   {
+      return elementDependency;
+   }
+   
+   public String getAssociatedName()
+   {
+      return dependency.getAssociatedName();
+   }
+   
+   public Class<?> getType()
+   {
+      return dependency.getType();
+   }
+   
+   public Member getMember()
+   {
+      return dependency.getMember();
+   }
+   
+   public void injectValue( Object targetObject, Object toInject )
+   {
+      dependency.injectValue( targetObject, toInject );
+   }
+   
+   public boolean equals( Object obj )
+   {
+      return obj instanceof ProviderDependency && dependency.equals( ( (ProviderDependency) obj ).dependency );
+   }
+   
+   public int hashCode()
+   {
+      return dependency.hashCode();
+   }
+   
+   public String toString()
+   {
+      return "Provider" + dependency;
+   }
+   
+   private static class ElementDependency implements Dependency
+   {
+      private final Dependency dependency;
+      private final Class<?> type;
+      
+      ElementDependency( Dependency dependency, Class<?> type )
+      {
+         this.dependency = dependency;
+         this.type = type;
+      }
+      
+      public String getAssociatedName()
+      {
+         return dependency.getAssociatedName();
+      }
+      
+      public Class<?> getType()
+      {
+         return type;
+      }
+      
+      public Member getMember()
+      {
+         return dependency.getMember();
+      }
+      
+      public void injectValue( Object targetObject, Object toInject )
+      {
+         throw new UnsupportedOperationException( "Values for " + this + " are delivered through a Provider" );
+      }
+      
+      public boolean equals( Object obj )
+      {
+         return obj instanceof ElementDependency && dependency.equals( ( (ElementDependency) obj ).dependency );
+      }
+      
+      public int hashCode()
+      {
+         return dependency.hashCode() * 31 + type.hashCode();
+      }
+      
+      public String toString()
+      {
+         return "[Element " + type.getName() + " of " + dependency + "]";
+      }
+   }
+}
@@ -15,8 +15,12 @@
 
 package net.sourceforge.hypo.inject.dependency;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -31,7 +35,11 @@ public class SimpleSetterDependency implements Dependency
 {
    private static Logger log = Logger.getLogger( SimpleSetterDependency.class.getCanonicalName() );
   
+   private static final MethodType INVOKER_TYPE = MethodType.methodType( void.class, Object.class, Object.class );
+   
    private Method setter;
+   private Class<?> type;
+   private final MethodHandle invoker;
    private String name = "";
    
    /**
@@ -40,13 +48,49 @@ public class SimpleSetterDependency implements Dependency
     * @param name an optional name for the dependency
     */
    public SimpleSetterDependency( Method setter, String name )
+   {
+      this( setter, name, createInvoker( setter ) );
+   }
+   
+   /**
+    * Constructor
+    * @param setter a java.lang.reflect.Method that has been identified as a dependency
+    * @param name an optional name for the dependency
+    * @param invoker a MethodHandle of type (Object,Object)void that calls the setter, 
+    * as returned by createInvoker()
+    */
+   SimpleSetterDependency( Method setter, String name, MethodHandle invoker )
    {
       this.setter = setter;
-      this.setter.setAccessible( true );
+      this.type = setter.getParameterTypes()[0];
+      this.invoker = invoker;
       if ( name != null )
          this.name = name;
    }
    
+   /**
+    * Build a MethodHandle that calls the specified setter method, adapted to the 
+    * generic type (Object,Object)void (any return value is discarded) so that it can 
+    * be invoked exactly without reflective access checks or an argument array
+    * @param setter a simple setter method
+    * @return an invoker MethodHandle for the setter
+    */
+   static MethodHandle createInvoker( Method setter )
+   {
+      try
+      {
+         setter.setAccessible( true );
+         MethodHandle handle = MethodHandles.lookup().unreflect( setter );
+         if ( Modifier.isStatic( setter.getModifiers() ) )
+            handle = MethodHandles.dropArguments( handle, 0, Object.class );
+         return handle.asType( INVOKER_TYPE );
+      }
+      catch( IllegalAccessException e )
+      {
+         throw new RuntimeException( "Failed to create invoker for setter method " + setter, e );
+      }
+   }
+   
    /**
     * @return the associated name
     */
@@ -68,12 +112,12 @@ public class SimpleSetterDependency implements Dependency
     */
    public Class<?> getType()
    {
-      return setter.getParameterTypes()[0];
+      return type;
    }
    
    /**
-    * Use reflection to satisfy the Dependency for 'targetObject' by reflectively
-    * invoking the setter method and passing 'toInject' as its single parameter
+    * Satisfy the Dependency for 'targetObject' by invoking the setter method through 
+    * the pre-built MethodHandle, passing 'toInject' as its single parameter
     * 
     * @param targetObject the Object whose dependency is being satisfied
     * @param toInject an object of the appropriate type that is being injected
@@ -87,16 +131,38 @@ public class SimpleSetterDependency implements Dependency
          {
             ( (InjectionAware) toInject ).beforeInjection( targetObject, this );            
          }
-         setter.invoke( targetObject, new Object[] { toInject } );
+         invoker.invokeExact( targetObject, toInject );
          if ( log.isLoggable(Level.FINE) )
             log.fine( "Called " + this + " on [" + Utils.getName( targetObject ) + "] with value [" + toInject + "]." );
       }
-      catch( Exception e )
+      catch( Error e )
       {
-         throw new RuntimeException( "Failed to inject via setter method " + setter, e );
+         throw e;
+      }
+      catch( Throwable t )
+      {
+         throw new RuntimeException( "Failed to inject via setter method " + setter, t );
       }      
    }
 
+   /**
+    * Two SimpleSetterDependencies are equal if they represent the same setter method with the same associated name
+    */
+   public boolean equals( Object obj )
+   {
+      if ( obj == this )
+         return true;
+      if ( !( obj instanceof SimpleSetterDependency ) )
+         return false;
+      SimpleSetterDependency other = (SimpleSetterDependency) obj;
+      return setter.equals( other.setter ) && name.equals( other.name );
+   }
+   
+   public int hashCode()
+   {
+      return setter.hashCode() * 31 + name.hashCode();
+   }
+   
    public String toString()
    {
       StringBuffer buff = new StringBuffer();
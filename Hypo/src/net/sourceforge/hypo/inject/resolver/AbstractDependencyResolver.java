@@ -15,6 +15,8 @@
 package net.sourceforge.hypo.inject.resolver;
 
 import net.sourceforge.hypo.inject.dependency.Dependency;
+import net.sourceforge.hypo.metrics.InjectionMetrics;
+import net.sourceforge.hypo.metrics.InjectionMetricsListener;
 
 /**
  * Convenient superclass for DependencyResolvers. Provides support for InjectionFactories:
@@ -22,7 +24,7 @@ import net.sourceforge.hypo.inject.dependency.Dependency;
  * In this case, the InjectionFactory's get() method will be called to obtain the instance
  * to be injected.
  */
-public abstract class AbstractDependencyResolver implements DependencyResolver {
+public abstract class AbstractDependencyResolver implements SharedValueResolver {
 
     /**
      * 
@@ -31,16 +33,30 @@ public abstract class AbstractDependencyResolver implements DependencyResolver {
     public boolean resolve(Dependency dep, Object target) {
        
        ResolutionResult result = doResolve(dep, target);
+       InjectionMetricsListener metrics = InjectionMetrics.getListener();
        
        if (!result.isResolved()) {
+           if (metrics != null) {
+               metrics.dependencyResolved(this, dep, false);
+           }
            return false;
        }
        
        Object obj = result.getValueToInject();
        if (obj instanceof InjectionFactory) {
-          obj = ((InjectionFactory<?>) obj).get(target, dep);
+          InjectionFactory<?> factory = (InjectionFactory<?>) obj;
+          if (metrics != null) {
+              long start = System.nanoTime();
+              obj = factory.get(target, dep);
+              metrics.factoryInvoked(factory, dep, System.nanoTime() - start);
+          } else {
+              obj = factory.get(target, dep);
+          }
        }
        dep.injectValue(target, obj);
+       if (metrics != null) {
+           metrics.dependencyResolved(this, dep, true);
+       }
 
        return true;
     }
@@ -55,4 +71,13 @@ public abstract class AbstractDependencyResolver implements DependencyResolver {
      */
     protected abstract ResolutionResult doResolve(Dependency dep, Object target);
     
+    /**
+     * Overridden by subclasses that know when a Dependency resolves to the same value
+     * for every target. Returns null, i.e. the outcome depends on the target
+     * @see SharedValueResolver#resolveShared(Dependency)
+     */
+    public ResolutionResult resolveShared(Dependency dep) {
+        return null;
+    }
+    
 }
@@ -0,0 +1,358 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject.resolver;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Member;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sourceforge.hypo.inject.dependency.Dependency;
+
+/**
+ * A decorator for another DependencyResolver that caches the ResolutionResult for each 
+ * Dependency, so that repeated resolution of the same Dependency only consults the underlying 
+ * resolver once. The Dependency is the only cache key, so this should only be used to decorate 
+ * resolvers whose result does not depend on the target object.
+ * 
+ * If the underlying resolver is an AbstractDependencyResolver, the result of its doResolve() is
+ * cached, and if that is an InjectionFactory, the factory is still called for every injection; 
+ * only the lookup of the factory itself is cached. Any other resolver is asked to resolve the 
+ * Dependency as usual, and the value it injects is cached. 
+ * 
+ * Only successful results are cached by default, so that a Dependency that cannot be resolved 
+ * yet is looked up again each time rather than failing for ever; see setCacheMisses(). 
+ * 
+ * By default, entries are kept until invalidated. Any combination of the following eviction 
+ * policies may be configured:
+ * <ul>
+ * <li>size-bounded: once more than maximumSize Dependencies are cached, the oldest entries are evicted</li>
+ * <li>time-based: entries expire once they are older than the time-to-live</li>
+ * <li>weak values: resolved values are only weakly referenced, and are looked up again once 
+ * they have been garbage collected</li>
+ * </ul>
+ */
+public class CachingDependencyResolver extends AbstractDependencyResolver
+{
+   private DependencyResolver delegate;
+   private ConcurrentMap<Dependency, CacheEntry> cache = new ConcurrentHashMap<Dependency, CacheEntry>();
+   private ConcurrentLinkedQueue<Dependency> insertionOrder = new ConcurrentLinkedQueue<Dependency>();
+   private int maximumSize = 0;
+   private long timeToLiveNanos = 0;
+   private boolean weakValues = false;
+   private boolean cacheMisses = false;
+   private AtomicLong hits = new AtomicLong();
+   private AtomicLong misses = new AtomicLong();
+   private AtomicLong evictions = new AtomicLong();
+   
+   public CachingDependencyResolver()
+   {
+   }
+   
+   public CachingDependencyResolver( DependencyResolver delegate )
+   {
+      setDelegate( delegate );
+   }
+   
+   /**
+    * Return the cached ResolutionResult for the Dependency if there is a live one; 
+    * otherwise consult the underlying resolver and cache its result
+    * @param dep the Dependency being satisfied
+    * @param target the target Object for which the dependency is being satisfied
+    */
+   protected ResolutionResult doResolve( Dependency dep, Object target )
+   {
+      CacheEntry entry = cache.get( dep );
+      if ( entry != null )
+      {
+         ResolutionResult result = entry.getResult();
+         if ( result != null )
+         {
+            hits.incrementAndGet();
+            return result;
+         }
+      }
+      
+      misses.incrementAndGet();
+      ResolutionResult result = resolveUncached( dep, target );
+      if ( !result.isResolved() && !cacheMisses )
+         return result;
+      long expiresAt = timeToLiveNanos > 0 ? System.nanoTime() + timeToLiveNanos : 0;
+      if ( cache.put( dep, new CacheEntry( result, weakValues, expiresAt ) ) == null && maximumSize > 0 )
+      {
+         insertionOrder.offer( dep );
+         evictExcessEntries();
+      }
+      return result;
+   }
+   
+   /**
+    * @return the result of the underlying resolver, without invoking any InjectionFactory it
+    * returns if it is an AbstractDependencyResolver
+    */
+   private ResolutionResult resolveUncached( Dependency dep, Object target )
+   {
+      if ( delegate instanceof AbstractDependencyResolver )
+         return ( (AbstractDependencyResolver) delegate ).doResolve( dep, target );
+      
+      Capture capture = new Capture( dep );
+      if ( !delegate.resolve( capture, target ) )
+         return ResolutionResult.couldNotResolve();
+      return ResolutionResult.resolved( capture.take() );
+   }
+   
+   /**
+    * A live cached result is the same for every target; otherwise defer to the underlying resolver
+    */
+   public ResolutionResult resolveShared( Dependency dep )
+   {
+      CacheEntry entry = cache.get( dep );
+      if ( entry != null )
+      {
+         ResolutionResult result = entry.getResult();
+         if ( result != null && !( result.getValueToInject() instanceof InjectionFactory ) )
+            return result;
+      }
+      if ( delegate instanceof SharedValueResolver )
+         return ( (SharedValueResolver) delegate ).resolveShared( dep );
+      return null;
+   }
+   
+   /**
+    * Only the lookup of an InjectionFactory is cached, so this is as for the underlying resolver
+    */
+   public boolean isThreadScoped( Dependency dep )
+   {
+      return delegate instanceof SharedValueResolver && ( (SharedValueResolver) delegate ).isThreadScoped( dep );
+   }
+   
+   private void evictExcessEntries()
+   {
+      while ( cache.size() > maximumSize )
+      {
+         Dependency eldest = insertionOrder.poll();
+         if ( eldest == null )
+            break;
+         if ( cache.remove( eldest ) != null )
+            evictions.incrementAndGet();
+      }
+   }
+   
+   /**
+    * Discard any cached result for the specified Dependency
+    * @param dep a Dependency
+    */
+   public void invalidate( Dependency dep )
+   {
+      if ( cache.remove( dep ) != null )
+         insertionOrder.remove( dep );
+   }
+   
+   /**
+    * Discard all cached results
+    */
+   public void invalidateAll()
+   {
+      cache.clear();
+      insertionOrder.clear();
+   }
+   
+   /**
+    * @return the number of resolutions that were satisfied from the cache
+    */
+   public long getHitCount()
+   {
+      return hits.get();
+   }
+   
+   /**
+    * @return the number of resolutions that had to consult the underlying resolver
+    */
+   public long getMissCount()
+   {
+      return misses.get();
+   }
+   
+   /**
+    * @return the number of entries evicted because the cache exceeded its maximum size
+    */
+   public long getEvictionCount()
+   {
+      return evictions.get();
+   }
+   
+   /**
+    * @return the number of Dependencies currently cached, including any whose entries have
+    * expired or been collected but not yet replaced
+    */
+   public int getSize()
+   {
+      return cache.size();
+   }
+   
+   /**
+    * @param delegate the resolver whose results are to be cached
+    */
+   public void setDelegate( DependencyResolver delegate )
+   {
+      this.delegate = delegate;
+      invalidateAll();
+   }
+   
+   /**
+    * @param maximumSize the maximum number of Dependencies to cache results for, or 0 
+    * (the default) for no limit
+    */
+   public void setMaximumSize( int maximumSize )
+   {
+      this.maximumSize = maximumSize;
+      invalidateAll();
+   }
+   
+   /**
+    * @param millis the time in milliseconds for which a cached result remains valid, or 0
+    * (the default) for no expiry
+    */
+   public void setTimeToLive( long millis )
+   {
+      this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos( millis );
+      invalidateAll();
+   }
+   
+   /**
+    * @param weakValues true if resolved values should only be weakly referenced by the cache.
+    * Defaults to false
+    */
+   public void setWeakValues( boolean weakValues )
+   {
+      this.weakValues = weakValues;
+      invalidateAll();
+   }
+   
+   /**
+    * Determines whether unsuccessful results are cached too. A cached miss is subject to the 
+    * same eviction policies as any other entry, so it is best combined with a time-to-live, 
+    * after which the Dependency is looked up again. Defaults to false
+    * @param cacheMisses true to cache unsuccessful results; false to look them up each time
+    */
+   public void setCacheMisses( boolean cacheMisses )
+   {
+      this.cacheMisses = cacheMisses;
+      invalidateAll();
+   }
+   
+   /**
+    * Stands in for a Dependency when resolving through a resolver that is not an 
+    * AbstractDependencyResolver, keeping the value it injects until it is taken. A Capture 
+    * may be kept as a key in a CompositeDependencyResolver's routing table, so it must not go 
+    * on holding the value, and is equal to any other Capture of the same Dependency
+    */
+   private static final class Capture implements Dependency
+   {
+      private final Dependency dependency;
+      private Object value;
+      
+      Capture( Dependency dependency )
+      {
+         this.dependency = dependency;
+      }
+      
+      public String getAssociatedName()
+      {
+         return dependency.getAssociatedName();
+      }
+      
+      public Class<?> getType()
+      {
+         return dependency.getType();
+      }
+      
+      public Member getMember()
+      {
+         return dependency.getMember();
+      }
+      
+      public void injectValue( Object targetObject, Object toInject )
+      {
+         value = toInject;
+      }
+      
+      Object take()
+      {
+         Object retval = value;
+         value = null;
+         return retval;
+      }
+      
+      public boolean equals( Object obj )
+      {
+         return obj instanceof Capture && dependency.equals( ( (Capture) obj ).dependency );
+      }
+      
+      public int hashCode()
+      {
+         return dependency.hashCode();
+      }
+      
+      public String toString()
+      {
+         return dependency.toString();
+      }
+   }
+   
+   /**
+    * A cached ResolutionResult, held either directly or as a weak reference to the 
+    * resolved value, together with its expiry time
+    */
+   private static final class CacheEntry
+   {
+      private final ResolutionResult result;
+      private final Reference<Object> valueRef;
+      private final long expiresAt;
+      
+      CacheEntry( ResolutionResult result, boolean weakValue, long expiresAt )
+      {
+         this.expiresAt = expiresAt;
+         if ( weakValue && result.isResolved() && result.getValueToInject() != null )
+         {
+            this.result = null;
+            this.valueRef = new WeakReference<Object>( result.getValueToInject() );
+         }
+         else
+         {
+            this.result = result;
+            this.valueRef = null;
+         }
+      }
+      
+      /**
+       * @return the cached result, or null if it has expired or its value has been collected
+       */
+      ResolutionResult getResult()
+      {
+         if ( expiresAt != 0 && System.nanoTime() - expiresAt > 0 )
+            return null;
+         if ( valueRef == null )
+            return result;
+         Object value = valueRef.get();
+         return value != null ? ResolutionResult.resolved( value ) : null;
+      }
+   }
+}
@@ -17,6 +17,9 @@ package net.sourceforge.hypo.inject.resolver;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import net.sourceforge.hypo.inject.dependency.Dependency;
 
@@ -25,10 +28,22 @@ import net.sourceforge.hypo.inject.dependency.Dependency;
  * A DependencyResolver that simply loops through a list of DependencyResolvers, 
  * trying each one in turn until a dependency is resolved or there are no
  * Inject Resolvers left to try
+ * 
+ * Optionally (see setRouting()), the resolver that resolved each Dependency is remembered in a 
+ * routing table, and later resolutions of the same Dependency go straight to it, falling back 
+ * to the full list if it no longer succeeds. Dependencies that none of the resolvers could 
+ * resolve are not remembered, so they are tried against the full list each time. The table is 
+ * discarded when the list of resolvers is changed. Routing is only correct if the resolvers 
+ * in the list do not change what they can resolve while it is on, unless invalidateRoutes() is 
+ * called whenever they do (e.g. when a binding is added to a SimpleTypeMappingResolver): a 
+ * route to a later resolver would otherwise hide a new binding in an earlier one. It also 
+ * assumes that whether a resolver can resolve a Dependency does not depend on the target.
  */
-public class CompositeDependencyResolver implements DependencyResolver
+public class CompositeDependencyResolver implements SharedValueResolver
 {
-   private List<DependencyResolver> resolvers = new ArrayList<DependencyResolver>();
+   private volatile Routing routing = new Routing( new ArrayList<DependencyResolver>(), false );
+   private final LongAdder routeHits = new LongAdder();
+   private final LongAdder routeMisses = new LongAdder();
    
    public CompositeDependencyResolver()
    {	   
@@ -49,12 +64,85 @@ public class CompositeDependencyResolver implements DependencyResolver
     * none of them could
     */
    public boolean resolve(Dependency dep, Object target) 
+   {
+      return resolveRoute( dep, target ) != null;
+   }
+   
+   /**
+    * As resolve(), but identifying the DependencyResolver that resolved the dependency, so
+    * that a caller resolving the same dependency repeatedly can go straight to it 
+    * @param dep object representing the dependency to be injected
+    * @param target an object eligible for dependency injection
+    * @return the first DependencyResolver that injected the dependency; null if none could
+    */
+   public DependencyResolver resolveRoute( Dependency dep, Object target )
+   {
+      Routing current = routing;
+      if ( !current.enabled )
+         return resolveInOrder( current.resolvers, dep, target, null );
+      
+      DependencyResolver route = current.routes.get( dep );
+      if ( route != null && route.resolve( dep, target ) )
+      {
+         routeHits.increment();
+         return route;
+      }
+      
+      routeMisses.increment();
+      DependencyResolver resolvedBy = resolveInOrder( current.resolvers, dep, target, route );
+      if ( resolvedBy != null )
+         current.routes.put( dep, resolvedBy );
+      else if ( route != null )
+         current.routes.remove( dep, route );
+      return resolvedBy;
+   }
+   
+   /**
+    * @param skip a resolver that has already failed to resolve dep, or null
+    * @return the first resolver in the list that resolved dep; null if none could
+    */
+   private static DependencyResolver resolveInOrder( List<DependencyResolver> resolvers, Dependency dep, Object target, DependencyResolver skip )
    {
       for ( DependencyResolver resolver: resolvers )
       {
-         boolean resolved = resolver.resolve(dep, target);
-         if ( resolved )
-        	 return true;
+         if ( resolver != skip && resolver.resolve( dep, target ) )
+            return resolver;
+      }
+      return null;
+   }
+   
+   /**
+    * Ask each of the DependencyResolvers in turn for a shared value, stopping at the first
+    * that has one. If any resolver before that cannot say, neither can this one
+    * @param dep a Dependency
+    * @return the first shared value found; null if a resolver that might have resolved dep
+    * is not a SharedValueResolver or depends on the target; couldNotResolve() if none of the 
+    * resolvers could resolve dep
+    */
+   public ResolutionResult resolveShared( Dependency dep )
+   {
+      for ( DependencyResolver resolver: routing.resolvers )
+      {
+         if ( !( resolver instanceof SharedValueResolver ) )
+            return null;
+         ResolutionResult result = ( (SharedValueResolver) resolver ).resolveShared( dep );
+         if ( result == null || result.isResolved() )
+            return result;
+      }
+      return ResolutionResult.couldNotResolve();
+   }
+   
+   /**
+    * @param dep a Dependency
+    * @return true if any of the DependencyResolvers might resolve dep to an instance belonging
+    * to the calling thread
+    */
+   public boolean isThreadScoped( Dependency dep )
+   {
+      for ( DependencyResolver resolver: routing.resolvers )
+      {
+         if ( resolver instanceof SharedValueResolver && ( (SharedValueResolver) resolver ).isThreadScoped( dep ) )
+            return true;
       }
       return false;
    }
@@ -64,6 +152,89 @@ public class CompositeDependencyResolver implements DependencyResolver
     */
    public void setResolvers( List<DependencyResolver> list )
    {
-      resolvers = list;
+      routing = new Routing( list, routing.enabled );
+   }
+   
+   /**
+    * Determines whether the resolver that resolved each Dependency is remembered and tried
+    * first next time. Defaults to false. See the class description for when routing is safe
+    * @param enabled true to route Dependencies through the routing table; false to always 
+    * try the resolvers in order
+    */
+   public void setRouting( boolean enabled )
+   {
+      routing = new Routing( routing.resolvers, enabled );
+   }
+   
+   /**
+    * @return true if Dependencies are routed through the routing table
+    */
+   public boolean isRouting()
+   {
+      return routing.enabled;
+   }
+   
+   /**
+    * Discard the routing table, so that each Dependency is next resolved by trying the 
+    * resolvers in order. Should be called when a resolver in the list changes which 
+    * Dependencies it can resolve
+    */
+   public void invalidateRoutes()
+   {
+      routing.routes.clear();
+   }
+   
+   /**
+    * @return the number of resolutions decided by the routing table, i.e. where the 
+    * remembered resolver succeeded
+    */
+   public long getRouteHitCount()
+   {
+      return routeHits.sum();
+   }
+   
+   /**
+    * @return the number of resolutions that had to try the resolvers in order, because the
+    * Dependency had no route or its remembered resolver failed
+    */
+   public long getRouteMissCount()
+   {
+      return routeMisses.sum();
+   }
+   
+   /**
+    * @return the proportion of routed resolutions that were routing table hits, or 0 if 
+    * there have been none
+    */
+   public double getRouteHitRate()
+   {
+      long hits = routeHits.sum();
+      long total = hits + routeMisses.sum();
+      return total > 0 ? (double) hits / total : 0;
+   }
+   
+   /**
+    * @return the number of Dependencies in the routing table
+    */
+   public int getRouteCount()
+   {
+      return routing.routes.size();
+   }
+   
+   /**
+    * A list of resolvers and the routing table that belongs to it, replaced together so 
+    * that a route is never followed to a resolver that is no longer in the list
+    */
+   private static final class Routing
+   {
+      final List<DependencyResolver> resolvers;
+      final boolean enabled;
+      final ConcurrentMap<Dependency,DependencyResolver> routes = new ConcurrentHashMap<Dependency,DependencyResolver>();
+      
+      Routing( List<DependencyResolver> resolvers, boolean enabled )
+      {
+         this.resolvers = resolvers;
+         this.enabled = enabled;
+      }
    }
 }
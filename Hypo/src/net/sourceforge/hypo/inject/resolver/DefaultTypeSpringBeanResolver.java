@@ -15,7 +15,8 @@
 
 package net.sourceforge.hypo.inject.resolver;
 
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -25,17 +26,28 @@ import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ApplicationContextEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
 
 
 /**
  * A Spring-aware DependencyResolver that looks up the Spring ApplicationContext to find the single bean
- * which has the same type as or is a subclass of the Dependency's type
+ * which has the same type as or is a subclass of the Dependency's type. The beans matching each 
+ * type are looked up once and indexed; singleton beans are then injected directly and other 
+ * beans fetched by name. The index is discarded whenever the ApplicationContext is refreshed 
+ * or closed, which requires this resolver to be registered as a bean in that context so that
+ * it receives those events. Types with no matching bean are indexed too, so that a miss does
+ * not search the context on every injection; a bean registered directly with the context's 
+ * BeanFactory without a refresh is not seen for a type that has already missed.
  */
-public class DefaultTypeSpringBeanResolver extends AbstractDependencyResolver implements ApplicationContextAware
+public class DefaultTypeSpringBeanResolver extends AbstractDependencyResolver implements ApplicationContextAware, ApplicationListener<ApplicationContextEvent>
 {
    private static Logger log = Logger.getLogger( DefaultTypeSpringBeanResolver.class.getCanonicalName() );
    
    private ApplicationContext applicationContext;
+   private volatile ConcurrentMap<Class<?>, TypeMatch> typeIndex = new ConcurrentHashMap<Class<?>, TypeMatch>();
    
    /**
     * Performs injection by looking up the Spring ApplicationContext to find the single bean
@@ -50,28 +62,111 @@ public class DefaultTypeSpringBeanResolver extends AbstractDependencyResolver im
    public ResolutionResult doResolve( Dependency dep, Object target )
    {
       Class<?> type = dep.getType();
-      Map<?, ?> map = BeanFactoryUtils.beansOfTypeIncludingAncestors( applicationContext, type );
-      if ( map.size() < 1 )
+      TypeMatch match = getTypeMatch( type );
+      if ( match.beanCount < 1 )
       {
     	 if ( log.isLoggable(Level.FINE) )
             log.fine( "No beans of required type found for dependency " + dep + ". Skipping." );
       }
-      else if ( map.size() > 1 )
+      else if ( match.beanCount > 1 )
       {         
          throw new RuntimeException( "Multiple beans of required type " + type + " found. Aborting." );
       }
       else
       {
-         Object bean = map.values().iterator().next();
+         ResolutionResult result = match.singletonResult;
+         if ( result == null )
+            result = ResolutionResult.resolved( applicationContext.getBean( match.beanName ) );
          if ( log.isLoggable(Level.FINE) )
-            log.fine( "Found bean [" + bean + "] to inject for dependency " + dep + "." );
-         return ResolutionResult.resolved(bean);
+            log.fine( "Found bean [" + result.getValueToInject() + "] to inject for dependency " + dep + "." );
+         return result;
       }
       return ResolutionResult.couldNotResolve();
    }
    
+   /**
+    * A single singleton bean of the required type is the same for every target. Ambiguous 
+    * dependencies are left to doResolve() to report
+    */
+   public ResolutionResult resolveShared( Dependency dep )
+   {
+      TypeMatch match = getTypeMatch( dep.getType() );
+      if ( match.beanCount < 1 )
+         return ResolutionResult.couldNotResolve();
+      if ( match.beanCount > 1 )
+         return null;
+      return match.singletonResult;
+   }
+   
+   /**
+    * The index is replaced rather than cleared on refresh, so a match found while the context 
+    * was being refreshed can only be added to the index that has been discarded
+    */
+   private TypeMatch getTypeMatch( Class<?> type )
+   {
+      ConcurrentMap<Class<?>, TypeMatch> index = typeIndex;
+      TypeMatch match = index.get( type );
+      if ( match == null )
+      {
+         match = indexType( type );
+         TypeMatch existing = index.putIfAbsent( type, match );
+         if ( existing != null )
+            match = existing;
+      }
+      return match;
+   }
+   
+   /**
+    * Find the beans of the specified type (or a subtype) in the ApplicationContext and its ancestors
+    */
+   private TypeMatch indexType( Class<?> type )
+   {
+      String[] names = BeanFactoryUtils.beanNamesForTypeIncludingAncestors( applicationContext, type );
+      if ( names.length != 1 )
+         return new TypeMatch( names.length, null, null );
+      
+      String name = names[0];
+      ResolutionResult singletonResult = null;
+      if ( applicationContext.isSingleton( name ) )
+         singletonResult = ResolutionResult.resolved( applicationContext.getBean( name ) );
+      return new TypeMatch( 1, name, singletonResult );
+   }
+   
+   /**
+    * Discard the type index when the ApplicationContext is refreshed or closed, 
+    * as the beans it refers to may no longer be current
+    */
+   public void onApplicationEvent( ApplicationContextEvent event )
+   {
+      if ( event instanceof ContextRefreshedEvent || event instanceof ContextClosedEvent )
+      {
+         if ( log.isLoggable(Level.FINE) )
+            log.fine( "Discarding bean type index on " + event.getClass().getSimpleName() + "." );
+         typeIndex = new ConcurrentHashMap<Class<?>, TypeMatch>();
+      }
+   }
+   
    public void setApplicationContext( ApplicationContext applicationContext ) throws BeansException
    {
       this.applicationContext = applicationContext;
+      typeIndex = new ConcurrentHashMap<Class<?>, TypeMatch>();
    }   
+   
+   /**
+    * The beans found for a particular type: how many there are, the name of the bean if 
+    * there is exactly one and, if that bean is a singleton, a reusable result for it
+    */
+   private static final class TypeMatch
+   {
+      final int beanCount;
+      final String beanName;
+      final ResolutionResult singletonResult;
+      
+      TypeMatch( int beanCount, String beanName, ResolutionResult singletonResult )
+      {
+         this.beanCount = beanCount;
+         this.beanName = beanName;
+         this.singletonResult = singletonResult;
+      }
+   }
 }
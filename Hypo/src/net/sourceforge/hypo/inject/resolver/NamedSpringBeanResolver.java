@@ -15,27 +15,40 @@
 
 package net.sourceforge.hypo.inject.resolver;
 
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import net.sourceforge.hypo.inject.dependency.Dependency;
 
 import org.springframework.beans.BeansException;
-import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ApplicationContextEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
 
 
 /**
  * A Spring-aware DependencyResolver that looks up the Spring ApplicationContext to find the single bean
- * which has the name specified by the Dependency
+ * which has the name specified by the Dependency. Each bean name is looked up once and the outcome 
+ * remembered: singleton beans are then injected directly and beans of other scopes are fetched by 
+ * name. Names with no bean are remembered too, so that a miss does not query the context on every 
+ * injection. The index is discarded whenever the ApplicationContext is refreshed or closed, which 
+ * requires this resolver to be registered as a bean in that context so that it receives those 
+ * events; a bean registered directly with the context's BeanFactory without a refresh is not seen 
+ * under a name that has already missed.
  */
-public class NamedSpringBeanResolver extends AbstractDependencyResolver implements ApplicationContextAware
+public class NamedSpringBeanResolver extends AbstractDependencyResolver implements ApplicationContextAware, ApplicationListener<ApplicationContextEvent>
 {      
    private static Logger log = Logger.getLogger( NamedSpringBeanResolver.class.getCanonicalName() );
    
+   private static final BeanHandle NO_SUCH_BEAN = new BeanHandle( null, null );
+   
    private ApplicationContext applicationContext;
+   private volatile ConcurrentMap<String, BeanHandle> nameIndex = new ConcurrentHashMap<String, BeanHandle>();
    
    /**
     * Performs injection by looking up the Spring ApplicationContext to find the single bean
@@ -48,23 +61,99 @@ public class NamedSpringBeanResolver extends AbstractDependencyResolver implemen
    public ResolutionResult doResolve( Dependency dep, Object target )
    {  
       String name = dep.getAssociatedName();
+      BeanHandle handle = getBeanHandle( name );
+      if ( handle == NO_SUCH_BEAN )
+         return ResolutionResult.couldNotResolve();
       
-      try
+      ResolutionResult result = handle.singletonResult;
+      if ( result == null || !dep.getType().isInstance( result.getValueToInject() ) )
       {
-         Object bean = applicationContext.getBean( name, dep.getType() );      
-         if ( log.isLoggable(Level.FINE) )
-            log.fine( "Found bean named \"" + name + "\" to inject for dependency " + dep + "." );
-         return ResolutionResult.resolved(bean);
+         // Not a singleton, or not of the required type, in which case getBean() reports the mismatch
+         result = ResolutionResult.resolved( applicationContext.getBean( handle.beanName, dep.getType() ) );
+      }
+      if ( log.isLoggable(Level.FINE) )
+         log.fine( "Found bean named \"" + name + "\" to inject for dependency " + dep + "." );
+      return result;
+   }
+   
+   /**
+    * A singleton bean of the required type is the same for every target; any other bean may not be
+    */
+   public ResolutionResult resolveShared( Dependency dep )
+   {
+      BeanHandle handle = getBeanHandle( dep.getAssociatedName() );
+      if ( handle == NO_SUCH_BEAN )
+         return ResolutionResult.couldNotResolve();
+      
+      ResolutionResult result = handle.singletonResult;
+      if ( result != null && dep.getType().isInstance( result.getValueToInject() ) )
+         return result;
+      return null;
+   }
+   
+   /**
+    * The index is replaced rather than cleared on refresh, so a handle found while the context 
+    * was being refreshed can only be added to the index that has been discarded
+    */
+   private BeanHandle getBeanHandle( String name )
+   {
+      if ( name == null || name.length() == 0 )
+         return NO_SUCH_BEAN;
+      
+      ConcurrentMap<String, BeanHandle> index = nameIndex;
+      BeanHandle handle = index.get( name );
+      if ( handle == null )
+      {
+         handle = indexName( name );
+         BeanHandle existing = index.putIfAbsent( name, handle );
+         if ( existing != null )
+            handle = existing;
       }
-      catch( NoSuchBeanDefinitionException nsbe )
+      return handle;
+   }
+   
+   private BeanHandle indexName( String name )
+   {
+      if ( !applicationContext.containsBean( name ) )
+         return NO_SUCH_BEAN;
+      if ( applicationContext.isSingleton( name ) )
+         return new BeanHandle( name, ResolutionResult.resolved( applicationContext.getBean( name ) ) );
+      return new BeanHandle( name, null );
+   }
+   
+   /**
+    * Discard the name index when the ApplicationContext is refreshed or closed, 
+    * as the beans it refers to may no longer be current
+    */
+   public void onApplicationEvent( ApplicationContextEvent event )
+   {
+      if ( event instanceof ContextRefreshedEvent || event instanceof ContextClosedEvent )
       {
-         //Drop out with "could not resolve" result
+         if ( log.isLoggable(Level.FINE) )
+            log.fine( "Discarding bean name index on " + event.getClass().getSimpleName() + "." );
+         nameIndex = new ConcurrentHashMap<String, BeanHandle>();
       }
-      return ResolutionResult.couldNotResolve();
    }
 
    public void setApplicationContext( ApplicationContext applicationContext ) throws BeansException
    {
       this.applicationContext = applicationContext;
+      nameIndex = new ConcurrentHashMap<String, BeanHandle>();
+   }
+   
+   /**
+    * The outcome of looking up a bean name: for a singleton, a reusable result holding
+    * the bean itself; for any other scope, just the name
+    */
+   private static final class BeanHandle
+   {
+      final String beanName;
+      final ResolutionResult singletonResult;
+      
+      BeanHandle( String beanName, ResolutionResult singletonResult )
+      {
+         this.beanName = beanName;
+         this.singletonResult = singletonResult;
+      }
    }
 }
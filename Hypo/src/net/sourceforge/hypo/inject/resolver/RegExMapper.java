@@ -17,24 +17,87 @@ package net.sourceforge.hypo.inject.resolver;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Maps classes to Strings using an ordered list of mappings of the form 
+ * &lt;regular expression&gt;=&lt;java.text.MessageFormat template&gt;. The fully-qualified 
+ * name of a class is matched against each regular expression in turn, and the first that
+ * matches supplies the result, with its captured groups substituted into the template.
+ * 
+ * The result for each class, including the absence of any match, is remembered, so 
+ * only the first lookup for a class does any matching. That first lookup only tries the
+ * mappings whose regular expression has a literal prefix matching the start of the class 
+ * name, as found from a prefix trie built over all of the mappings.
+ */
 public class RegExMapper
 {
+   private static final String NO_MAPPING = new String( "<no mapping>" );
+   
    private List<Mapping> mappings;
+   private TrieNode prefixTrie;
+   private ClassValue<String> mappedStrings = new ClassValue<String>()
+   {
+      protected String computeValue( Class<?> clazz )
+      {
+         String retval = findMappedString( clazz.getName() );
+         return retval != null ? retval : NO_MAPPING;
+      }
+   };
    
    public RegExMapper( List<String> patterns )
    {
       init( patterns );   
    }
    
+   /**
+    * @param clazz a class
+    * @return the String that the first matching mapping produces for the class, or null
+    * if no mapping matches
+    */
    public String getMappedString( Class<?> clazz )
    {
+      String retval = mappedStrings.get( clazz );
+      return retval != NO_MAPPING ? retval : null;
+   }
+   
+   /**
+    * @return the Strings produced by those mappings whose templates do not refer to any 
+    * captured groups, i.e. which always produce the same String whatever class they match
+    */
+   public List<String> getConstantMappedStrings()
+   {
+      List<String> retval = new ArrayList<String>();
       for ( Mapping mapping: mappings )
       {
-         String retval = mapping.getMappedString( clazz );
+         String str = mapping.getConstantString();
+         if ( str != null )
+            retval.add( str );
+      }
+      return retval;
+   }
+   
+   private String findMappedString( String className )
+   {
+      BitSet candidates = new BitSet( mappings.size() );
+      TrieNode node = prefixTrie;
+      candidates.or( node.mappings );
+      for ( int i = 0; i < className.length(); i++ )
+      {
+         node = node.children.get( className.charAt( i ) );
+         if ( node == null )
+            break;
+         candidates.or( node.mappings );
+      }
+      
+      for ( int i = candidates.nextSetBit( 0 ); i >= 0; i = candidates.nextSetBit( i + 1 ) )
+      {
+         String retval = mappings.get( i ).getMappedString( className );
          if ( retval != null )
             return retval;
       }
@@ -44,38 +107,113 @@ public class RegExMapper
    private void init( List<String> patList )
    {
       mappings = new ArrayList<Mapping>();
+      prefixTrie = new TrieNode();
       for ( String str: patList )
       {
-         mappings.add( new Mapping( str ) );  
+         Mapping mapping = new Mapping( str );
+         TrieNode node = prefixTrie;
+         for ( char c: mapping.literalPrefix.toCharArray() )
+         {
+            TrieNode child = node.children.get( c );
+            if ( child == null )
+            {
+               child = new TrieNode();
+               node.children.put( c, child );
+            }
+            node = child;
+         }
+         node.mappings.set( mappings.size() );
+         mappings.add( mapping );  
       }
    }
    
+   /**
+    * A node in the prefix trie. Holds the indices of the mappings whose literal prefix 
+    * is exactly the path to this node
+    */
+   private static class TrieNode
+   {
+      private Map<Character, TrieNode> children = new HashMap<Character, TrieNode>();
+      private BitSet mappings = new BitSet();
+   }
+   
    private static class Mapping
    {
       private Pattern pattern;
-      private String template;
+      private MessageFormat template;
+      private String literalPrefix;
       
       public Mapping( String item )
       {                          
          String[] x = item.split( "=" );
          String patternStr = x[0].trim();
          pattern = Pattern.compile( patternStr );         
-         template = x[1].trim();
+         template = new MessageFormat( x[1].trim() );
+         literalPrefix = getLiteralPrefix( patternStr );
       }      
       
-      public String getMappedString( Class<?> clazz )
+      public String getMappedString( String toMatch )
       {
          String mapsTo = null;
-         String toMatch = clazz.getName();         
          Matcher matcher = pattern.matcher( toMatch );         
          if ( matcher.matches() )
          {
             Object[] groups = new String[ matcher.groupCount() ];
             for ( int i = 0; i < groups.length; i++ )
                groups[i] = matcher.group( i + 1 );
-            mapsTo = MessageFormat.format( template, groups );            
+            // MessageFormat is not thread-safe, but this is only reached on the first lookup for a class
+            synchronized( template )
+            {
+               mapsTo = template.format( groups );
+            }
          }
          return mapsTo;
-      }            
+      }
+      
+      /**
+       * @return the String produced by the template if it has no format elements; null otherwise
+       */
+      public String getConstantString()
+      {
+         synchronized( template )
+         {
+            return template.getFormats().length == 0 ? template.format( new Object[0] ) : null;
+         }
+      }
+      
+      /**
+       * @return the longest string that every match of the regular expression must start with,
+       * determined conservatively: this stops at the first character that is not plainly a 
+       * literal, and is empty if the expression contains any alternation
+       */
+      private static String getLiteralPrefix( String regex )
+      {
+         StringBuilder buff = new StringBuilder();
+         if ( regex.indexOf( '|' ) >= 0 )
+            return "";
+         int i = regex.startsWith( "^" ) ? 1 : 0;
+         while ( i < regex.length() )
+         {
+            char c = regex.charAt( i );
+            if ( c == '\\' )
+            {
+               if ( i + 1 >= regex.length() || Character.isLetterOrDigit( regex.charAt( i + 1 ) ) )
+                  break;
+               c = regex.charAt( i + 1 );
+               i += 2;
+            }
+            else if ( ".[](){}*+?^$".indexOf( c ) >= 0 )
+               break;
+            else
+               i++;
+            
+            if ( i < regex.length() && "?*{".indexOf( regex.charAt( i ) ) >= 0 )
+               break;
+            buff.append( c );
+            if ( i < regex.length() && regex.charAt( i ) == '+' )
+               break;
+         }
+         return buff.toString();
+      }
    }  
 }
@@ -15,10 +15,14 @@
 
 package net.sourceforge.hypo.inject.resolver;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import net.sourceforge.hypo.inject.dependency.Dependency;
 
@@ -31,17 +35,33 @@ import net.sourceforge.hypo.inject.dependency.Dependency;
  * The named class must have an accessible no-args constructor. The template
  * expression may be prefixed with a "!" to denote that this new instance
  * should be a singleton - i.e. after initial creation, the same instance will
- * be used whenever a dependency of that type is matched by the same mapping 
+ * be used whenever a dependency of that type is matched by the same mapping.
+ * Alternatively, a prefix of "@" denotes that each thread should have its own 
+ * instance (see ThreadScopedFactory), for classes that are expensive to create 
+ * but not thread-safe.
+ * 
+ * The class and constructor that each dependency type maps to are resolved once, and new
+ * instances are then created through a constructor MethodHandle. Templates that do not refer
+ * to any captured groups are resolved as soon as the mappings are set, so that a misspelt
+ * class name is reported at configuration time rather than on first injection. Classes are 
+ * not initialized until their first instance is created, so resolving them early does not run 
+ * their static initializers any sooner.
  */
 public class RegExNewInstanceResolver extends AbstractDependencyResolver
 {
+   private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType( Object.class );
+   private static final Instantiator NO_MAPPING = new Instantiator( null, null, false );
    
    private RegExMapper mapper;
-   private Map<Class<?>,Object> singletons;
+   private ConcurrentMap<Class<?>,Object> singletons;
+   private ConcurrentMap<String,Instantiator> instantiatorsByName;
+   private ClassValue<Instantiator> instantiators;
+   private volatile ThreadScopedFactory.VirtualThreadPolicy virtualThreadPolicy = ThreadScopedFactory.VirtualThreadPolicy.NEW_INSTANCE;
    
    public RegExNewInstanceResolver()
    {
-      singletons = new HashMap<Class<?>,Object>();
+      singletons = new ConcurrentHashMap<Class<?>,Object>();
+      instantiatorsByName = new ConcurrentHashMap<String,Instantiator>();
    }
    
    public RegExNewInstanceResolver( String pattern )
@@ -71,29 +91,106 @@ public class RegExNewInstanceResolver extends AbstractDependencyResolver
    
    public ResolutionResult doResolve( Dependency dep, Object target )
    {
-      boolean singleton = false;;
-      String mappedClassName = mapper.getMappedString( dep.getType() );                  
-      if ( mappedClassName != null )
+      Instantiator instantiator = instantiators.get( dep.getType() );
+      if ( instantiator == NO_MAPPING )
+         return ResolutionResult.couldNotResolve();
+      
+      if ( instantiator.singleton )
+         return getSingletonResult( instantiator );
+      if ( instantiator.threadScope != null )
+         return instantiator.threadScopeResult;
+      return ResolutionResult.resolved( instantiator.newInstance() );
+   }
+   
+   /**
+    * Singleton mappings resolve to the same instance for every target; others create a new one 
+    * each time, or one per thread
+    */
+   public ResolutionResult resolveShared( Dependency dep )
+   {
+      Instantiator instantiator = instantiators.get( dep.getType() );
+      if ( instantiator == NO_MAPPING )
+         return ResolutionResult.couldNotResolve();
+      
+      if ( instantiator.singleton )
+         return getSingletonResult( instantiator );
+      return null;
+   }
+   
+   /**
+    * The result for a singleton mapping is created once and then reused
+    */
+   private ResolutionResult getSingletonResult( Instantiator instantiator )
+   {
+      ResolutionResult retval = instantiator.singletonResult;
+      if ( retval == null )
+      {
+         retval = ResolutionResult.resolved( getSingleton( instantiator ) );
+         instantiator.singletonResult = retval;
+      }
+      return retval;
+   }
+   
+   private Object getSingleton( Instantiator instantiator )
+   {
+      Object retval = singletons.get( instantiator.clazz );
+      if ( retval == null )
       {
-         if ( mappedClassName.startsWith( "!" ) )
+         synchronized( singletons )
          {
-            mappedClassName = mappedClassName.substring( 1 );
+            retval = singletons.get( instantiator.clazz );
+            if ( retval == null )
+            {
+               retval = instantiator.newInstance();
+               singletons.put( instantiator.clazz, retval );
+            }
+         }
+      }
+      return retval;
+   }
+   
+   /**
+    * @param mappedClassName a class name produced by the mapper, optionally prefixed with "!" or "@"
+    * @return an Instantiator for the named class, shared by all dependency types mapping to it
+    */
+   private Instantiator getInstantiator( String mappedClassName )
+   {
+      Instantiator retval = instantiatorsByName.get( mappedClassName );
+      if ( retval == null )
+      {
+         boolean singleton = false;
+         boolean threadScoped = false;
+         String className = mappedClassName;
+         if ( className.startsWith( "!" ) )
+         {
+            className = className.substring( 1 );
             singleton = true;
          }
-      
-         Class<?> mappedClass = createClass( mappedClassName );
-         Object obj = getInstance( mappedClass, singleton );
-         return ResolutionResult.resolved(obj);
+         else if ( className.startsWith( "@" ) )
+         {
+            className = className.substring( 1 );
+            threadScoped = true;
+         }
+         Class<?> clazz = createClass( className );
+         retval = new Instantiator( clazz, findConstructor( clazz ), singleton );
+         if ( threadScoped )
+         {
+            retval.threadScope = new ThreadScopedFactory<Object>( retval );
+            retval.threadScope.setVirtualThreadPolicy( virtualThreadPolicy );
+            retval.threadScopeResult = ResolutionResult.resolved( retval.threadScope );
+         }
+         Instantiator existing = instantiatorsByName.putIfAbsent( mappedClassName, retval );
+         if ( existing != null )
+            retval = existing;
       }
-      else
-         return ResolutionResult.couldNotResolve();
+      return retval;
    }
 
    private Class<?> createClass( String className )
    {
       try
       {
-         return Class.forName( className );
+         return Class.forName( className, false, RegExNewInstanceResolver.class.getClassLoader() );
       }
       catch( Exception e )
       {
@@ -101,38 +198,125 @@ public class RegExNewInstanceResolver extends AbstractDependencyResolver
       }     
    }
    
-   private Object getInstance( Class<?> clazz, boolean singleton )
+   private static MethodHandle findConstructor( Class<?> clazz )
    {
-      Object retval = null;
-      if ( singleton )
+      try
       {
-         retval = singletons.get( clazz );
-         if ( retval == null )
-         {
-            retval = createNewInstance( clazz );
-            singletons.put( clazz, retval );            
-         }              
+         Constructor<?> constructor = clazz.getDeclaredConstructor();
+         constructor.setAccessible( true );
+         return MethodHandles.lookup().unreflectConstructor( constructor ).asType( CONSTRUCTOR_TYPE );
+      }
+      catch( Exception e )
+      {
+         throw new RuntimeException( "Class " + clazz.getName() + " does not have an accessible no-args constructor", e );
       }
-      else
-         retval = createNewInstance( clazz );
-      
-      return retval;
    }
-
-   private Object createNewInstance( Class<?> clazz )
+   
+   /**
+    * Set how "@" (thread-scoped) mappings behave on virtual threads. Defaults to 
+    * ThreadScopedFactory.VirtualThreadPolicy.NEW_INSTANCE
+    * @param policy the policy for virtual threads
+    */
+   public void setVirtualThreadPolicy( ThreadScopedFactory.VirtualThreadPolicy policy )
    {
-      try
+      virtualThreadPolicy = policy;
+      for ( Instantiator instantiator: instantiatorsByName.values() )
       {
-         return clazz.newInstance();
+         if ( instantiator.threadScope != null )
+            instantiator.threadScope.setVirtualThreadPolicy( policy );
       }
-      catch( Exception e )
+   }
+   
+   /**
+    * Release every thread's instance of every "@" (thread-scoped) mapping, closing those that 
+    * are AutoCloseable. Each thread will be given new instances the next time it is injected.
+    */
+   public void releaseThreadScopedInstances()
+   {
+      for ( Instantiator instantiator: instantiatorsByName.values() )
       {
-         throw new RuntimeException( e );
-      }      
+         if ( instantiator.threadScope != null )
+            instantiator.threadScope.releaseAll();
+      }
+   }
+   
+   /**
+    * @return the number of instances currently held for threads across all "@" 
+    * (thread-scoped) mappings
+    */
+   public int getThreadScopedInstanceCount()
+   {
+      int count = 0;
+      for ( Instantiator instantiator: instantiatorsByName.values() )
+      {
+         if ( instantiator.threadScope != null )
+            count += instantiator.threadScope.getInstanceCount();
+      }
+      return count;
    }
    
    public void setPatternMappings( List<String> mappings )
    {
+      releaseThreadScopedInstances();
       mapper = new RegExMapper( mappings );
+      instantiatorsByName.clear();
+      instantiators = new ClassValue<Instantiator>()
+      {
+         protected Instantiator computeValue( Class<?> type )
+         {
+            String mappedClassName = mapper.getMappedString( type );
+            return mappedClassName != null ? getInstantiator( mappedClassName ) : NO_MAPPING;
+         }
+      };
+      
+      // Fail fast on any class name that does not depend on the type being mapped
+      for ( String mappedClassName: mapper.getConstantMappedStrings() )
+         getInstantiator( mappedClassName );
+   }
+   
+   /**
+    * A mapped class, the MethodHandle for its no-args constructor, whether instances
+    * are singletons, and the per-thread instances of thread-scoped mappings
+    */
+   private static final class Instantiator implements InjectionFactory<Object>
+   {
+      final Class<?> clazz;
+      final MethodHandle constructor;
+      final boolean singleton;
+      ThreadScopedFactory<Object> threadScope;
+      ResolutionResult threadScopeResult;
+      volatile ResolutionResult singletonResult;
+      
+      Instantiator( Class<?> clazz, MethodHandle constructor, boolean singleton )
+      {
+         this.clazz = clazz;
+         this.constructor = constructor;
+         this.singleton = singleton;
+      }
+      
+      Object newInstance()
+      {
+         try
+         {
+            return (Object) constructor.invokeExact();
+         }
+         catch( RuntimeException e )
+         {
+            throw e;
+         }
+         catch( Error e )
+         {
+            throw e;
+         }
+         catch( Throwable t )
+         {
+            throw new RuntimeException( t );
+         }
+      }
+      
+      public Object get( Object targetObject, Dependency dep )
+      {
+         return newInstance();
+      }
    }
 }
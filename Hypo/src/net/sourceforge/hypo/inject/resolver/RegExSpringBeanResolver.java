@@ -16,6 +16,8 @@
 package net.sourceforge.hypo.inject.resolver;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -25,17 +27,40 @@ import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 
+/**
+ * A Resolver that matches the type name of the dependency to be injected against a 
+ * regular expression, and constructs from a template expression the name of a Spring 
+ * bean to inject. The template expression may be prefixed with a "@" to denote that 
+ * each thread should have its own instance of the bean (see ThreadScopedFactory), which 
+ * is obtained from the ApplicationContext on the thread's first injection. This is 
+ * intended for prototype beans that are expensive to create but not thread-safe. Released 
+ * instances of prototype beans are closed if they are AutoCloseable, since Spring does not 
+ * manage their lifecycle; instances of beans of any other scope are left to Spring.
+ */
 public class RegExSpringBeanResolver extends AbstractDependencyResolver implements ApplicationContextAware
 {
    private static Logger log = Logger.getLogger( RegExSpringBeanResolver.class.getCanonicalName() );
    
    private ApplicationContext applicationContext;
    private RegExMapper mapper;
+   private final ConcurrentMap<String,ThreadScopedFactory<Object>> threadScopes = new ConcurrentHashMap<String,ThreadScopedFactory<Object>>();
+   private final ConcurrentMap<String,ResolutionResult> threadScopeResults = new ConcurrentHashMap<String,ResolutionResult>();
+   private volatile ThreadScopedFactory.VirtualThreadPolicy virtualThreadPolicy = ThreadScopedFactory.VirtualThreadPolicy.NEW_INSTANCE;
    
    public ResolutionResult doResolve( Dependency dep, Object target )
    {
       String beanName = mapper.getMappedString( dep.getType() );
-      if ( beanName != null )
+      if ( beanName != null && beanName.startsWith( "@" ) )
+      {
+         ResolutionResult result = threadScopeResults.get( beanName );
+         if ( result == null )
+         {
+            result = ResolutionResult.resolved( getThreadScope( beanName.substring( 1 ) ) );
+            threadScopeResults.putIfAbsent( beanName, result );
+         }
+         return result;
+      }
+      else if ( beanName != null )
       {
          Object bean = applicationContext.getBean( beanName, dep.getType() );
          if ( log.isLoggable(Level.FINE) )
@@ -46,6 +71,67 @@ public class RegExSpringBeanResolver extends AbstractDependencyResolver implemen
          return ResolutionResult.couldNotResolve();
    }
    
+   private ThreadScopedFactory<Object> getThreadScope( final String beanName )
+   {
+      ThreadScopedFactory<Object> retval = threadScopes.get( beanName );
+      if ( retval == null )
+      {
+         retval = new ThreadScopedFactory<Object>( new InjectionFactory<Object>()
+         {
+            public Object get( Object targetObject, Dependency dep )
+            {
+               Object bean = applicationContext.getBean( beanName, dep.getType() );
+               if ( log.isLoggable(Level.FINE) )
+                  log.fine( "Created thread-scoped bean [" + bean + "] for thread " + Thread.currentThread().getName() + "." );
+               return bean;
+            }
+         } );
+         retval.setVirtualThreadPolicy( virtualThreadPolicy );
+         // Spring destroys the beans it keeps, so only prototype instances are closed here
+         if ( !applicationContext.containsBean( beanName ) || !applicationContext.isPrototype( beanName ) )
+            retval.setCleanupHook( null );
+         ThreadScopedFactory<Object> existing = threadScopes.putIfAbsent( beanName, retval );
+         if ( existing != null )
+            retval = existing;
+      }
+      return retval;
+   }
+   
+   /**
+    * Set how "@" (thread-scoped) mappings behave on virtual threads. Defaults to 
+    * ThreadScopedFactory.VirtualThreadPolicy.NEW_INSTANCE
+    * @param policy the policy for virtual threads
+    */
+   public void setVirtualThreadPolicy( ThreadScopedFactory.VirtualThreadPolicy policy )
+   {
+      virtualThreadPolicy = policy;
+      for ( ThreadScopedFactory<Object> scope: threadScopes.values() )
+         scope.setVirtualThreadPolicy( policy );
+   }
+   
+   /**
+    * Release every thread's instance of every "@" (thread-scoped) bean, closing those of 
+    * prototype beans that are AutoCloseable. Each thread will be given new instances the next 
+    * time it is injected.
+    */
+   public void releaseThreadScopedInstances()
+   {
+      for ( ThreadScopedFactory<Object> scope: threadScopes.values() )
+         scope.releaseAll();
+   }
+   
+   /**
+    * @return the number of bean instances currently held for threads across all "@" 
+    * (thread-scoped) mappings
+    */
+   public int getThreadScopedInstanceCount()
+   {
+      int count = 0;
+      for ( ThreadScopedFactory<Object> scope: threadScopes.values() )
+         count += scope.getInstanceCount();
+      return count;
+   }
+   
    public void setApplicationContext( ApplicationContext applicationContext ) throws BeansException
    {
       this.applicationContext = applicationContext;
@@ -53,6 +139,9 @@ public class RegExSpringBeanResolver extends AbstractDependencyResolver implemen
    
    public void setPatternMappings( List<String> mappings )
    {
+      releaseThreadScopedInstances();
+      threadScopes.clear();
+      threadScopeResults.clear();
       mapper = new RegExMapper( mappings );
    }  
 }
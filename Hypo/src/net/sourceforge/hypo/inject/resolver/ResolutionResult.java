@@ -3,9 +3,10 @@ package net.sourceforge.hypo.inject.resolver;
 public class ResolutionResult {
 
     private static final ResolutionResult COULD_NOT_RESOLVE = new ResolutionResult(false, null);
+    private static final ResolutionResult RESOLVED_NULL = new ResolutionResult(true, null);
     
-    private boolean resolved;
-    private Object valueToInject;
+    private final boolean resolved;
+    private final Object valueToInject;
     
     private ResolutionResult(boolean resolved, Object valueToInject) {
         this.resolved = resolved;
@@ -24,7 +25,14 @@ public class ResolutionResult {
        return COULD_NOT_RESOLVE;    
     }
     
+    /**
+     * Results are immutable, so resolvers that resolve a dependency to the same value
+     * repeatedly may create the result once and return it each time
+     */
     public static ResolutionResult resolved(Object valueToInject) {
+        if (valueToInject == null) {
+            return RESOLVED_NULL;
+        }
         ResolutionResult result = new ResolutionResult(true, valueToInject);
         return result;
     }
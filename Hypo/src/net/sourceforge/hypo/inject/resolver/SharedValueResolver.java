@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject.resolver;
+
+import net.sourceforge.hypo.inject.dependency.Dependency;
+
+/**
+ * Implemented by DependencyResolvers that can tell from a Dependency alone that every target
+ * would receive the same value, as for a type bound to a singleton. Batch injection uses this 
+ * to resolve such a Dependency once for a whole batch of objects rather than once per object.
+ */
+public interface SharedValueResolver extends DependencyResolver
+{
+   /**
+    * @param dep a Dependency
+    * @return ResolutionResult.resolved( value ) if resolve() would inject value into any target;
+    * ResolutionResult.couldNotResolve() if resolve() would fail for any target; or null if the
+    * outcome depends on the target, in which case resolve() is called for each one. The value
+    * must not be an InjectionFactory
+    */
+   ResolutionResult resolveShared( Dependency dep );
+   
+   /**
+    * @param dep a Dependency
+    * @return true if resolve() may inject an instance that belongs to the calling thread, as for
+    * a type bound to a ThreadScopedFactory, so that dep must be resolved on the thread that asked
+    * for the injection rather than on a pool thread. Defaults to false
+    */
+   default boolean isThreadScoped( Dependency dep )
+   {
+      return false;
+   }
+}
@@ -14,8 +14,13 @@
  */
 package net.sourceforge.hypo.inject.resolver;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 
 import net.sourceforge.hypo.inject.dependency.Dependency;
 
@@ -23,13 +28,21 @@ import net.sourceforge.hypo.inject.dependency.Dependency;
  * 
  * A very simple implementation of DependencyResolver that allows types to be
  * programmatically bound to instances or InjectionFactory's. Resolution is based 
- * on the exact declared type of the dependency only.
+ * on the exact declared type of the dependency only, unless setResolveAssignableTypes(true)
+ * is called, in which case a dependency whose type has no binding of its own resolves
+ * to the binding of its most specific bound superclass or interface. 
+ * 
+ * The bindings are held in an immutable snapshot which is replaced as a whole whenever they
+ * change, so bindings can be changed at runtime while other threads are resolving: resolution
+ * never locks, and always sees either all or none of the changes made by a single call. Use
+ * bindAll() to make several bindings visible at once.
  */
 public class SimpleTypeMappingResolver extends AbstractDependencyResolver {
 
     private static final Object NULL_PLACEHOLDER = new Object();
     
-    private Map<Class<?>, Object> typeMap = new HashMap<Class<?>, Object>();
+    private final Object writeLock = new Object();
+    private volatile Bindings bindings = new Bindings(Collections.<Class<?>, Object>emptyMap(), false);
     
     public SimpleTypeMappingResolver() {
         bind(DependencyResolver.class, this);
@@ -42,10 +55,7 @@ public class SimpleTypeMappingResolver extends AbstractDependencyResolver {
      * @param instance an instance that is assignable to that type
      */
     public <T> void bind(Class<T> clazz, T instance) {
-        if (instance == null) {
-            typeMap.put(clazz, NULL_PLACEHOLDER);
-        }
-        typeMap.put(clazz, instance);
+        bindAll(Collections.<Class<?>, Object>singletonMap(clazz, instance));
     }
     
     /**
@@ -55,10 +65,40 @@ public class SimpleTypeMappingResolver extends AbstractDependencyResolver {
      * @param factory an InjectFactory that will provide instances of that type
      */
     public <T> void bind(Class<T> clazz, InjectionFactory<T> factory) {
-        if (factory == null) {
-            typeMap.put(clazz, NULL_PLACEHOLDER);
+        bindAll(Collections.<Class<?>, Object>singletonMap(clazz, factory));
+    }
+    
+    /**
+     * Bind several types at once, each to an instance of that type or an InjectionFactory
+     * that will provide instances of it. The new bindings replace any existing bindings for 
+     * those types, and become visible to resolution together
+     * @param newBindings a map from each type to its instance or InjectionFactory
+     */
+    public void bindAll(Map<Class<?>, ?> newBindings) {
+        synchronized (writeLock) {
+            Bindings current = bindings;
+            Map<Class<?>, Object> typeMap = new HashMap<Class<?>, Object>(current.typeMap);
+            for (Map.Entry<Class<?>, ?> entry : newBindings.entrySet()) {
+                Object item = entry.getValue();
+                typeMap.put(entry.getKey(), item != null ? item : NULL_PLACEHOLDER);
+            }
+            bindings = new Bindings(Collections.unmodifiableMap(typeMap), current.resolveAssignableTypes);
         }
-        typeMap.put(clazz, factory);
+    }
+    
+    /**
+     * Bind a type to a ThreadScopedFactory, so that each thread is injected with its own 
+     * instance, created by the given factory on the thread's first injection of that type.
+     * The binding will immediately replace any existing binding for that type
+     * @param clazz the type
+     * @param factory an InjectionFactory that creates the instance for each thread
+     * @return the ThreadScopedFactory, through which instances can be released, cleanup and 
+     * memory accounting configured, and the virtual thread policy set
+     */
+    public <T> ThreadScopedFactory<T> bindThreadScoped(Class<T> clazz, InjectionFactory<T> factory) {
+        ThreadScopedFactory<T> scoped = new ThreadScopedFactory<T>(factory);
+        bind(clazz, scoped);
+        return scoped;
     }
    
     /**
@@ -66,7 +106,29 @@ public class SimpleTypeMappingResolver extends AbstractDependencyResolver {
      * @param clazz the type to remove a binding for
      */
     public void clearBinding(Class<?> clazz) {
-        typeMap.remove(clazz);
+        synchronized (writeLock) {
+            Bindings current = bindings;
+            if (current.typeMap.containsKey(clazz)) {
+                Map<Class<?>, Object> typeMap = new HashMap<Class<?>, Object>(current.typeMap);
+                typeMap.remove(clazz);
+                bindings = new Bindings(Collections.unmodifiableMap(typeMap), current.resolveAssignableTypes);
+            }
+        }
+    }
+    
+    /**
+     * Determines whether a dependency whose exact type is not bound may resolve to the binding 
+     * of a superclass or interface of that type. The nearest bound supertype is chosen, superclasses 
+     * before interfaces at the same distance. Bound instances that are not themselves of the 
+     * dependency's type are passed over, but InjectionFactory's are assumed to provide a suitable 
+     * instance. The search is done once per dependency type and remembered until the bindings 
+     * change. Defaults to false.
+     * @param resolveAssignable true to resolve through supertypes; false to require an exact match
+     */
+    public void setResolveAssignableTypes(boolean resolveAssignable) {
+        synchronized (writeLock) {
+            bindings = new Bindings(bindings.typeMap, resolveAssignable);
+        }
     }
     
     /**
@@ -80,16 +142,105 @@ public class SimpleTypeMappingResolver extends AbstractDependencyResolver {
      */
     @Override
     public ResolutionResult doResolve(Dependency dependency, Object target) {
-        Class<?> type = dependency.getType();
-        Object item = typeMap.get(type);
-        if (item != null) {
-            if (item == NULL_PLACEHOLDER) {
-                return ResolutionResult.resolved(null);
-            } else {
-                return ResolutionResult.resolved(item);
+        return bindings.resolve(dependency.getType());
+    } 
+    
+    /**
+     * A type bound to an instance resolves to that instance for every target; one bound to 
+     * an InjectionFactory may not
+     */
+    @Override
+    public ResolutionResult resolveShared(Dependency dependency) {
+        ResolutionResult result = doResolve(dependency, null);
+        if (result.getValueToInject() instanceof InjectionFactory) {
+            return null;
+        }
+        return result;
+    }
+    
+    /**
+     * A type bound to a ThreadScopedFactory gives each thread its own instance
+     */
+    @Override
+    public boolean isThreadScoped(Dependency dependency) {
+        return bindings.resolve(dependency.getType()).getValueToInject() instanceof ThreadScopedFactory;
+    }
+    
+    private static boolean isSuitable(Object item, Class<?> type) {
+        return item == NULL_PLACEHOLDER || item instanceof InjectionFactory || type.isInstance(item);
+    }
+    
+    private static ResolutionResult toResult(Object item) {
+        return ResolutionResult.resolved(item != NULL_PLACEHOLDER ? item : null);
+    }
+    
+    /**
+     * An immutable snapshot of the bindings, along with the supertype search results for
+     * them (which are only valid for this snapshot). The ResolutionResult for each binding
+     * is created once, when the snapshot is
+     */
+    private static final class Bindings {
+        
+        final Map<Class<?>, Object> typeMap;
+        final Map<Class<?>, ResolutionResult> results = new HashMap<Class<?>, ResolutionResult>();
+        final boolean resolveAssignableTypes;
+        final ClassValue<ResolutionResult> assignableResults = new ClassValue<ResolutionResult>() {
+            @Override
+            protected ResolutionResult computeValue(Class<?> type) {
+                Class<?> boundType = findBoundSupertype(type);
+                return boundType != null ? results.get(boundType) : ResolutionResult.couldNotResolve();
+            }
+        };
+        
+        Bindings(Map<Class<?>, Object> typeMap, boolean resolveAssignableTypes) {
+            this.typeMap = typeMap;
+            this.resolveAssignableTypes = resolveAssignableTypes;
+            for (Map.Entry<Class<?>, Object> entry : typeMap.entrySet()) {
+                results.put(entry.getKey(), toResult(entry.getValue()));
             }
-        } else {
-           return ResolutionResult.couldNotResolve();
         }
-    } 
+        
+        /**
+         * @param type the dependency type
+         * @return the result for the binding of the type, or couldNotResolve() if there is none
+         */
+        ResolutionResult resolve(Class<?> type) {
+            ResolutionResult result = resolveAssignableTypes ? assignableResults.get(type) : results.get(type);
+            return result != null ? result : ResolutionResult.couldNotResolve();
+        }
+        
+        /**
+         * Search the supertypes of a type, nearest first, for one that is bound
+         * @param type the dependency type
+         * @return the most specific bound supertype, or null if there is none
+         */
+        private Class<?> findBoundSupertype(Class<?> type) {
+            Queue<Class<?>> queue = new ArrayDeque<Class<?>>();
+            Set<Class<?>> visited = new HashSet<Class<?>>();
+            queue.add(type);
+            while (!queue.isEmpty()) {
+                Class<?> candidate = queue.remove();
+                if (!visited.add(candidate)) {
+                    continue;
+                }
+                Object item = typeMap.get(candidate);
+                // The type's own binding is used as it would be without assignable lookup;
+                // isSuitable() would reject it for a primitive type, whose values are boxed
+                if (item != null && (candidate == type || isSuitable(item, type))) {
+                    return candidate;
+                }
+                if (candidate.getSuperclass() != null) {
+                    queue.add(candidate.getSuperclass());
+                }
+                Collections.addAll(queue, candidate.getInterfaces());
+            }
+            if (type.isInterface()) {
+                Object item = typeMap.get(Object.class);
+                if (item != null && isSuitable(item, type)) {
+                    return Object.class;
+                }
+            }
+            return null;
+        }
+    }
 }
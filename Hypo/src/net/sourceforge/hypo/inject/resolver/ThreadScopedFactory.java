@@ -0,0 +1,338 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.inject.resolver;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.hypo.inject.dependency.Dependency;
+
+/**
+ * An InjectionFactory that gives each thread its own instance, created on first use by a 
+ * wrapped InjectionFactory. Intended for objects that are expensive to create but not 
+ * thread-safe (MessageDigests, parsers, codec buffers), where a new instance per injection 
+ * is too costly and a single shared instance would have to be locked.
+ * 
+ * Virtual threads are numerous and short-lived, so by default they do not get an instance 
+ * of their own: each injection on a virtual thread creates a new instance instead (see 
+ * VirtualThreadPolicy). 
+ * 
+ * Instances are tracked so that they can be cleaned up: when released explicitly, when 
+ * releaseAll() is called, and when the thread that owned them is found to have terminated. 
+ * The cleanup hook defaults to closing instances that implement AutoCloseable. The number 
+ * of live instances, and optionally their estimated size, are available for monitoring. 
+ * 
+ * Note that an instance remains referenced by any object it was injected into, so a 
+ * thread-scoped binding is only appropriate for targets that are confined to the injecting 
+ * thread.
+ */
+public class ThreadScopedFactory<T> implements InjectionFactory<T>
+{
+   private static Logger log = Logger.getLogger( ThreadScopedFactory.class.getCanonicalName() );
+   
+   private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+   
+   /**
+    * How a thread-scoped binding behaves on a virtual thread
+    */
+   public enum VirtualThreadPolicy
+   {
+      /** Each injection on a virtual thread creates a new instance, which is not tracked */
+      NEW_INSTANCE,
+      /** Virtual threads are treated like platform threads and each keeps its own instance */
+      THREAD_LOCAL
+   }
+   
+   private final InjectionFactory<T> factory;
+   private final ConcurrentHashMap<Slot<T>,Boolean> live = new ConcurrentHashMap<Slot<T>,Boolean>();
+   private final AtomicLong created = new AtomicLong();
+   private final LongAdder estimatedBytes = new LongAdder();
+   private final ThreadLocal<Slot<T>> slots = new ThreadLocal<Slot<T>>();
+   // Instances are created under the read lock and releaseAll() holds the write lock, so that
+   // no instance can be created for a generation that releaseAll() has already cleaned up
+   private final ReadWriteLock generationLock = new ReentrantReadWriteLock();
+   private volatile int generation;
+   private volatile VirtualThreadPolicy virtualThreadPolicy = VirtualThreadPolicy.NEW_INSTANCE;
+   private volatile Consumer<? super T> cleanupHook = new Consumer<T>()
+   {
+      public void accept( T instance )
+      {
+         if ( instance instanceof AutoCloseable )
+         {
+            try
+            {
+               ( (AutoCloseable) instance ).close();
+            }
+            catch( Exception e )
+            {
+               log.log( Level.WARNING, "Failed to close thread-scoped instance " + instance, e );
+            }
+         }
+      }
+   };
+   private volatile ToLongFunction<? super T> sizeEstimator;
+   
+   /**
+    * @param factory creates the instance for each thread. It is called with the target and 
+    * Dependency of the first injection on that thread
+    */
+   public ThreadScopedFactory( InjectionFactory<T> factory )
+   {
+      if ( factory == null )
+         throw new IllegalArgumentException( "factory must not be null" );
+      this.factory = factory;
+   }
+   
+   public T get( Object targetObject, Dependency dep )
+   {
+      Slot<T> slot = slots.get();
+      if ( slot != null && slot.generation == generation )
+         return slot.instance;
+      
+      Thread thread = Thread.currentThread();
+      if ( virtualThreadPolicy == VirtualThreadPolicy.NEW_INSTANCE && isVirtual( thread ) )
+      {
+         created.incrementAndGet();
+         return factory.get( targetObject, dep );
+      }
+      
+      expungeTerminatedThreads();
+      generationLock.readLock().lock();
+      try
+      {
+         T instance = factory.get( targetObject, dep );
+         slot = new Slot<T>( thread, instance, estimateSize( instance ), generation );
+         slots.set( slot );
+         live.put( slot, Boolean.TRUE );
+         created.incrementAndGet();
+         estimatedBytes.add( slot.size );
+         return instance;
+      }
+      finally
+      {
+         generationLock.readLock().unlock();
+      }
+   }
+   
+   /**
+    * Release the calling thread's instance, if it has one, passing it to the cleanup hook. 
+    * The thread will be given a new instance the next time it is injected.
+    */
+   public void release()
+   {
+      Slot<T> slot = slots.get();
+      if ( slot != null )
+      {
+         slots.remove();
+         cleanUp( slot );
+      }
+   }
+   
+   /**
+    * Release the instances of all threads, passing each to the cleanup hook. Every thread 
+    * will be given a new instance the next time it is injected. Waits for any instances 
+    * being created to be tracked first, so that they are released too.
+    */
+   public void releaseAll()
+   {
+      generationLock.writeLock().lock();
+      try
+      {
+         generation++;
+         for ( Slot<T> slot: live.keySet() )
+            cleanUp( slot );
+      }
+      finally
+      {
+         generationLock.writeLock().unlock();
+      }
+   }
+   
+   /**
+    * Clean up the instances of threads that have terminated. This also happens whenever a 
+    * new instance is created.
+    * @return the number of instances cleaned up
+    */
+   public int expungeTerminatedThreads()
+   {
+      int count = 0;
+      for ( Iterator<Slot<T>> it = live.keySet().iterator(); it.hasNext(); )
+      {
+         Slot<T> slot = it.next();
+         Thread owner = slot.owner.get();
+         if ( ( owner == null || !owner.isAlive() ) && cleanUp( slot ) )
+            count++;
+      }
+      return count;
+   }
+   
+   /**
+    * @param slot a tracked instance
+    * @return true if this call removed and cleaned up the instance; false if another call
+    * already had
+    */
+   private boolean cleanUp( Slot<T> slot )
+   {
+      if ( live.remove( slot ) == null )
+         return false;
+      
+      estimatedBytes.add( -slot.size );
+      Consumer<? super T> hook = cleanupHook;
+      if ( hook != null )
+      {
+         try
+         {
+            hook.accept( slot.instance );
+         }
+         catch( RuntimeException e )
+         {
+            log.log( Level.WARNING, "Cleanup of thread-scoped instance " + slot.instance + " failed", e );
+         }
+      }
+      return true;
+   }
+   
+   private long estimateSize( T instance )
+   {
+      ToLongFunction<? super T> estimator = sizeEstimator;
+      return estimator != null ? estimator.applyAsLong( instance ) : 0;
+   }
+   
+   /**
+    * @return the number of instances currently held for threads
+    */
+   public int getInstanceCount()
+   {
+      return live.size();
+   }
+   
+   /**
+    * @return the total number of instances created by this factory, including those created 
+    * for virtual threads under VirtualThreadPolicy.NEW_INSTANCE
+    */
+   public long getCreatedCount()
+   {
+      return created.get();
+   }
+   
+   /**
+    * @return the sum of the estimated sizes of the instances currently held for threads, or 
+    * 0 if no size estimator has been set
+    */
+   public long getEstimatedBytes()
+   {
+      return estimatedBytes.sum();
+   }
+   
+   /**
+    * Set the action taken on each instance when it is released. Defaults to closing 
+    * instances that implement AutoCloseable
+    * @param hook the cleanup action, or null for none
+    */
+   public void setCleanupHook( Consumer<? super T> hook )
+   {
+      cleanupHook = hook;
+   }
+   
+   /**
+    * Set a function giving the approximate retained size in bytes of an instance, which 
+    * is applied once to each instance when it is created
+    * @param estimator the size estimator, or null to not account for memory
+    */
+   public void setSizeEstimator( ToLongFunction<? super T> estimator )
+   {
+      sizeEstimator = estimator;
+   }
+   
+   /**
+    * @param policy how this binding behaves on virtual threads. Defaults to 
+    * VirtualThreadPolicy.NEW_INSTANCE
+    */
+   public void setVirtualThreadPolicy( VirtualThreadPolicy policy )
+   {
+      if ( policy == null )
+         throw new IllegalArgumentException( "policy must not be null" );
+      virtualThreadPolicy = policy;
+   }
+   
+   public VirtualThreadPolicy getVirtualThreadPolicy()
+   {
+      return virtualThreadPolicy;
+   }
+   
+   /**
+    * @param thread a thread
+    * @return true if the thread is a virtual thread. Always false on JVMs without virtual threads
+    */
+   static boolean isVirtual( Thread thread )
+   {
+      if ( IS_VIRTUAL == null )
+         return false;
+      try
+      {
+         return (boolean) IS_VIRTUAL.invokeExact( thread );
+      }
+      catch( Throwable t )
+      {
+         return false;
+      }
+   }
+   
+   private static MethodHandle findIsVirtual()
+   {
+      try
+      {
+         return MethodHandles.publicLookup().findVirtual( Thread.class, "isVirtual", MethodType.methodType( boolean.class ) );
+      }
+      catch( Exception e )
+      {
+         return null;
+      }
+   }
+   
+   /**
+    * An instance and the thread it was created for. The thread is weakly referenced so that 
+    * it is not kept alive by the binding. A thread's slot from before the last releaseAll() 
+    * has an old generation, and is replaced the next time the thread is injected
+    */
+   private static final class Slot<T>
+   {
+      final WeakReference<Thread> owner;
+      final T instance;
+      final long size;
+      final int generation;
+      
+      Slot( Thread owner, T instance, long size, int generation )
+      {
+         this.owner = new WeakReference<Thread>( owner );
+         this.instance = instance;
+         this.size = size;
+         this.generation = generation;
+      }
+   }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.sourceforge.hypo.inject.InjectionStrategy;
+import net.sourceforge.hypo.inject.dependency.Dependency;
+import net.sourceforge.hypo.inject.resolver.DependencyResolver;
+import net.sourceforge.hypo.inject.resolver.InjectionFactory;
+
+/**
+ * An InjectionMetricsListener that keeps counters and latency histograms in memory and 
+ * publishes them as an MXBean. All counters are LongAdders, which stripe their updates 
+ * across cells under contention, so recording is cheap even from many threads.
+ * 
+ * install() both makes this the current listener and registers it with the platform 
+ * MBeanServer, so in a Spring context it can be declared with init-method="install" and 
+ * destroy-method="uninstall".
+ */
+public class DefaultInjectionMetrics implements InjectionMetricsListener, InjectionMetricsMXBean
+{
+   public static final String DEFAULT_OBJECT_NAME = "net.sourceforge.hypo:type=InjectionMetrics";
+   
+   private String objectName = DEFAULT_OBJECT_NAME;
+   private ObjectName registeredName;
+   
+   private final LongAdder objectsIntercepted = new LongAdder();
+   private final LatencyHistogram interceptionLatency = new LatencyHistogram();
+   private final ConcurrentMap<Class<?>,LatencyHistogram> injections = new ConcurrentHashMap<Class<?>,LatencyHistogram>();
+   private final ConcurrentMap<DependencyResolver,ResolverCounts> resolvers = new ConcurrentHashMap<DependencyResolver,ResolverCounts>();
+   private final ConcurrentMap<Class<?>,LatencyHistogram> factories = new ConcurrentHashMap<Class<?>,LatencyHistogram>();
+   private final ConcurrentMap<InjectionStrategy,Integer> planCacheSizes = new ConcurrentHashMap<InjectionStrategy,Integer>();
+   
+   public void objectIntercepted( Class<?> clazz, boolean injected, long nanos )
+   {
+      objectsIntercepted.increment();
+      interceptionLatency.record( nanos );
+   }
+   
+   public void classInjected( Class<?> clazz, int dependencies, long nanos )
+   {
+      histogramFor( injections, clazz ).record( nanos );
+   }
+   
+   public void dependencyResolved( DependencyResolver resolver, Dependency dep, boolean resolved )
+   {
+      ResolverCounts counts = resolvers.get( resolver );
+      if ( counts == null )
+      {
+         counts = new ResolverCounts();
+         ResolverCounts existing = resolvers.putIfAbsent( resolver, counts );
+         if ( existing != null )
+            counts = existing;
+      }
+      if ( resolved )
+         counts.hits.increment();
+      else
+         counts.misses.increment();
+   }
+   
+   public void factoryInvoked( InjectionFactory<?> factory, Dependency dep, long nanos )
+   {
+      histogramFor( factories, factory.getClass() ).record( nanos );
+   }
+   
+   public void planCacheSizeChanged( InjectionStrategy strategy, int size )
+   {
+      planCacheSizes.put( strategy, size );
+   }
+   
+   private static LatencyHistogram histogramFor( ConcurrentMap<Class<?>,LatencyHistogram> map, Class<?> clazz )
+   {
+      LatencyHistogram retval = map.get( clazz );
+      if ( retval == null )
+      {
+         retval = new LatencyHistogram();
+         LatencyHistogram existing = map.putIfAbsent( clazz, retval );
+         if ( existing != null )
+            retval = existing;
+      }
+      return retval;
+   }
+   
+   public long getObjectsIntercepted()
+   {
+      return objectsIntercepted.sum();
+   }
+   
+   public long getClassesInjected()
+   {
+      long retval = 0;
+      for ( LatencyHistogram h : injections.values() )
+         retval += h.getCount();
+      return retval;
+   }
+   
+   public Map<String,Long> getInjectionCounts()
+   {
+      Map<String,Long> retval = new TreeMap<String,Long>();
+      for ( Map.Entry<Class<?>,LatencyHistogram> entry : injections.entrySet() )
+         retval.put( entry.getKey().getName(), entry.getValue().getCount() );
+      return retval;
+   }
+   
+   public Map<String,Long> getMeanInjectionNanos()
+   {
+      Map<String,Long> retval = new TreeMap<String,Long>();
+      for ( Map.Entry<Class<?>,LatencyHistogram> entry : injections.entrySet() )
+         retval.put( entry.getKey().getName(), entry.getValue().getMeanNanos() );
+      return retval;
+   }
+   
+   public Map<String,Long> getInjectionLatencyHistogram()
+   {
+      return combinedHistogram( injections );
+   }
+   
+   public Map<String,Long> getInjectionLatencyHistogram( String className )
+   {
+      long[] totals = new long[ LatencyHistogram.BUCKETS ];
+      for ( Map.Entry<Class<?>,LatencyHistogram> entry : injections.entrySet() )
+      {
+         if ( entry.getKey().getName().equals( className ) )
+            entry.getValue().addTo( totals );
+      }
+      return LatencyHistogram.toMap( totals );
+   }
+   
+   public Map<String,Long> getInterceptionLatencyHistogram()
+   {
+      return LatencyHistogram.toMap( interceptionLatency.snapshot() );
+   }
+   
+   public Map<String,Long> getResolverHits()
+   {
+      Map<String,Long> retval = new TreeMap<String,Long>();
+      for ( Map.Entry<DependencyResolver,ResolverCounts> entry : resolvers.entrySet() )
+         retval.put( label( entry.getKey() ), entry.getValue().hits.sum() );
+      return retval;
+   }
+   
+   public Map<String,Long> getResolverMisses()
+   {
+      Map<String,Long> retval = new TreeMap<String,Long>();
+      for ( Map.Entry<DependencyResolver,ResolverCounts> entry : resolvers.entrySet() )
+         retval.put( label( entry.getKey() ), entry.getValue().misses.sum() );
+      return retval;
+   }
+   
+   public Map<String,Long> getFactoryInvocations()
+   {
+      Map<String,Long> retval = new TreeMap<String,Long>();
+      for ( Map.Entry<Class<?>,LatencyHistogram> entry : factories.entrySet() )
+         retval.put( entry.getKey().getName(), entry.getValue().getCount() );
+      return retval;
+   }
+   
+   public Map<String,Long> getMeanFactoryNanos()
+   {
+      Map<String,Long> retval = new TreeMap<String,Long>();
+      for ( Map.Entry<Class<?>,LatencyHistogram> entry : factories.entrySet() )
+         retval.put( entry.getKey().getName(), entry.getValue().getMeanNanos() );
+      return retval;
+   }
+   
+   public Map<String,Long> getFactoryLatencyHistogram()
+   {
+      return combinedHistogram( factories );
+   }
+   
+   public Map<String,Integer> getPlanCacheSizes()
+   {
+      Map<String,Integer> retval = new TreeMap<String,Integer>();
+      for ( Map.Entry<InjectionStrategy,Integer> entry : planCacheSizes.entrySet() )
+         retval.put( label( entry.getKey() ), entry.getValue() );
+      return retval;
+   }
+   
+   public void reset()
+   {
+      objectsIntercepted.reset();
+      interceptionLatency.reset();
+      injections.clear();
+      resolvers.clear();
+      factories.clear();
+      planCacheSizes.clear();
+   }
+   
+   private static Map<String,Long> combinedHistogram( ConcurrentMap<Class<?>,LatencyHistogram> map )
+   {
+      long[] totals = new long[ LatencyHistogram.BUCKETS ];
+      for ( LatencyHistogram h : map.values() )
+         h.addTo( totals );
+      return LatencyHistogram.toMap( totals );
+   }
+   
+   private static String label( Object obj )
+   {
+      return obj.getClass().getName() + "@" + Integer.toHexString( System.identityHashCode( obj ) );
+   }
+   
+   /**
+    * Make this the current InjectionMetricsListener and register it with the platform MBeanServer
+    * @throws IllegalStateException if registration fails, e.g. because another MBean is already
+    * registered under the same name
+    */
+   public synchronized void install()
+   {
+      if ( registeredName == null )
+      {
+         try
+         {
+            ObjectName name = new ObjectName( objectName );
+            ManagementFactory.getPlatformMBeanServer().registerMBean( this, name );
+            registeredName = name;
+         }
+         catch( JMException e )
+         {
+            throw new IllegalStateException( "Could not register injection metrics as " + objectName, e );
+         }
+      }
+      InjectionMetrics.setListener( this );
+   }
+   
+   /**
+    * Stop being the current InjectionMetricsListener, if this is it, and unregister from the 
+    * platform MBeanServer
+    */
+   public synchronized void uninstall()
+   {
+      if ( InjectionMetrics.getListener() == this )
+         InjectionMetrics.setListener( null );
+      if ( registeredName != null )
+      {
+         try
+         {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if ( server.isRegistered( registeredName ) )
+               server.unregisterMBean( registeredName );
+         }
+         catch( JMException e )
+         {
+            throw new IllegalStateException( "Could not unregister injection metrics " + registeredName, e );
+         }
+         finally
+         {
+            registeredName = null;
+         }
+      }
+   }
+   
+   /**
+    * @param name the JMX ObjectName to register under. Defaults to DEFAULT_OBJECT_NAME
+    */
+   public void setObjectName( String name )
+   {
+      objectName = name;
+   }
+   
+   private static class ResolverCounts
+   {
+      final LongAdder hits = new LongAdder();
+      final LongAdder misses = new LongAdder();
+   }
+}
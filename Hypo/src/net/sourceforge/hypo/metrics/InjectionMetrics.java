@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.metrics;
+
+/**
+ * Holds the InjectionMetricsListener that the injection pipeline reports to. There is no 
+ * listener by default, in which case the only cost to the pipeline is reading a volatile field 
+ * at each point where it would report: no clocks are read and nothing is allocated.
+ */
+public final class InjectionMetrics
+{
+   private static volatile InjectionMetricsListener listener;
+   
+   private InjectionMetrics()
+   {
+   }
+   
+   /**
+    * @return the listener currently installed, or null if there is none
+    */
+   public static InjectionMetricsListener getListener()
+   {
+      return listener;
+   }
+   
+   /**
+    * @param l the listener that the injection pipeline should report to from now on, or 
+    * null to stop reporting
+    */
+   public static void setListener( InjectionMetricsListener l )
+   {
+      listener = l;
+   }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.metrics;
+
+import net.sourceforge.hypo.inject.InjectionStrategy;
+import net.sourceforge.hypo.inject.dependency.Dependency;
+import net.sourceforge.hypo.inject.resolver.DependencyResolver;
+import net.sourceforge.hypo.inject.resolver.InjectionFactory;
+
+/**
+ * Receives measurements from the injection pipeline. A listener is installed with 
+ * InjectionMetrics.setListener(), and is called on the injecting thread, so implementations
+ * must be thread-safe and should do as little work as possible.
+ * 
+ * @see InjectionMetrics
+ * @see DefaultInjectionMetrics
+ */
+public interface InjectionMetricsListener
+{
+   /**
+    * Called by the DependencyInjectionAspect after it has passed a newly created or 
+    * deserialized object to its InjectionStrategy
+    * @param clazz the class the aspect intercepted. For per-class injection this is the class
+    * being initialised, otherwise it is the class of the object
+    * @param injected true if the InjectionStrategy injected any dependencies
+    * @param nanos the time taken, including the InjectionStrategy
+    */
+   void objectIntercepted( Class<?> clazz, boolean injected, long nanos );
+   
+   /**
+    * Called by AbstractInjectionStrategy after all of the dependencies of an object have been 
+    * resolved and injected. Not called for ineligible objects, or if any dependency was unresolved
+    * @param clazz the class whose dependencies were injected
+    * @param dependencies the number of dependencies injected
+    * @param nanos the time taken to resolve and inject them
+    */
+   void classInjected( Class<?> clazz, int dependencies, long nanos );
+   
+   /**
+    * Called by AbstractDependencyResolver each time it is asked to resolve a dependency
+    * @param resolver the resolver
+    * @param dep the dependency
+    * @param resolved true if the resolver injected a value; false if it could not resolve dep
+    */
+   void dependencyResolved( DependencyResolver resolver, Dependency dep, boolean resolved );
+   
+   /**
+    * Called by AbstractDependencyResolver each time it obtains a value from an InjectionFactory
+    * @param factory the factory
+    * @param dep the dependency the value is for
+    * @param nanos the time taken by InjectionFactory.get()
+    */
+   void factoryInvoked( InjectionFactory<?> factory, Dependency dep, long nanos );
+   
+   /**
+    * Called by AbstractInjectionStrategy each time it adds an InjectionPlan to its cache
+    * @param strategy the strategy
+    * @param size the number of InjectionPlans now cached
+    */
+   void planCacheSizeChanged( InjectionStrategy strategy, int size );
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of DefaultInjectionMetrics. Maps are keyed by class name, by
+ * resolver (class name and identity hash) or by histogram bucket, and appear as tabular 
+ * data in JMX clients.
+ */
+public interface InjectionMetricsMXBean
+{
+   /**
+    * @return the number of objects intercepted by the DependencyInjectionAspect
+    */
+   long getObjectsIntercepted();
+   
+   /**
+    * @return the number of times all of the dependencies of a class were injected
+    */
+   long getClassesInjected();
+   
+   /**
+    * @return the number of injections, by class
+    */
+   Map<String,Long> getInjectionCounts();
+   
+   /**
+    * @return the mean time to resolve and inject the dependencies of each class, in nanoseconds
+    */
+   Map<String,Long> getMeanInjectionNanos();
+   
+   /**
+    * @return the distribution of injection times across all classes
+    */
+   Map<String,Long> getInjectionLatencyHistogram();
+   
+   /**
+    * @param className a fully qualified class name
+    * @return the distribution of injection times for the named class; empty if it has
+    * not been injected
+    */
+   Map<String,Long> getInjectionLatencyHistogram( String className );
+   
+   /**
+    * @return the distribution of the time spent in the aspect for each intercepted object, 
+    * whether or not it was injected
+    */
+   Map<String,Long> getInterceptionLatencyHistogram();
+   
+   /**
+    * @return the number of dependencies each resolver has resolved
+    */
+   Map<String,Long> getResolverHits();
+   
+   /**
+    * @return the number of dependencies each resolver could not resolve
+    */
+   Map<String,Long> getResolverMisses();
+   
+   /**
+    * @return the number of calls to InjectionFactory.get(), by factory class
+    */
+   Map<String,Long> getFactoryInvocations();
+   
+   /**
+    * @return the mean duration of InjectionFactory.get(), by factory class, in nanoseconds
+    */
+   Map<String,Long> getMeanFactoryNanos();
+   
+   /**
+    * @return the distribution of InjectionFactory.get() durations across all factories
+    */
+   Map<String,Long> getFactoryLatencyHistogram();
+   
+   /**
+    * @return the number of InjectionPlans cached by each strategy
+    */
+   Map<String,Integer> getPlanCacheSizes();
+   
+   /**
+    * Discard everything recorded so far
+    */
+   void reset();
+}
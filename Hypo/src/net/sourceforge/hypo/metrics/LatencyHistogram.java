@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds, with one bucket per power of two. Each bucket is
+ * a LongAdder, so recording from many threads at once does not contend on a single counter.
+ */
+final class LatencyHistogram
+{
+   static final int BUCKETS = 64;
+   
+   private final LongAdder[] buckets = new LongAdder[ BUCKETS ];
+   private final LongAdder count = new LongAdder();
+   private final LongAdder totalNanos = new LongAdder();
+   
+   LatencyHistogram()
+   {
+      for ( int i = 0; i < BUCKETS; i++ )
+         buckets[ i ] = new LongAdder();
+   }
+   
+   /**
+    * @param nanos a duration. Bucket n holds durations below 2^n nanoseconds and at or above
+    * 2^(n-1)
+    */
+   void record( long nanos )
+   {
+      int bucket = nanos <= 0 ? 0 : Math.min( BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros( nanos ) );
+      buckets[ bucket ].increment();
+      count.increment();
+      totalNanos.add( nanos );
+   }
+   
+   void reset()
+   {
+      for ( int i = 0; i < BUCKETS; i++ )
+         buckets[ i ].reset();
+      count.reset();
+      totalNanos.reset();
+   }
+   
+   long getCount()
+   {
+      return count.sum();
+   }
+   
+   long getMeanNanos()
+   {
+      long n = count.sum();
+      return n == 0 ? 0 : totalNanos.sum() / n;
+   }
+   
+   /**
+    * Add the counts in this histogram to those in totals, by bucket
+    */
+   void addTo( long[] totals )
+   {
+      for ( int i = 0; i < BUCKETS; i++ )
+         totals[ i ] += buckets[ i ].sum();
+   }
+   
+   long[] snapshot()
+   {
+      long[] retval = new long[ BUCKETS ];
+      addTo( retval );
+      return retval;
+   }
+   
+   /**
+    * @param counts bucket counts, as from snapshot()
+    * @return the non-empty buckets in ascending order, each keyed by the exclusive upper bound
+    * of the bucket, e.g. "< 1024 ns"
+    */
+   static Map<String,Long> toMap( long[] counts )
+   {
+      Map<String,Long> retval = new LinkedHashMap<String,Long>();
+      for ( int i = 0; i < BUCKETS; i++ )
+      {
+         if ( counts[ i ] != 0 )
+            retval.put( i == BUCKETS - 1 ? "overflow" : "< " + ( 1L << i ) + " ns", counts[ i ] );
+      }
+      return retval;
+   }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2026 Alasdair Gilmour 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License. 
+ */
+
+package net.sourceforge.hypo.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import net.sourceforge.hypo.annotation.Dependency;
+import net.sourceforge.hypo.inject.GeneratedInjector;
+
+/**
+ * A javac annotation processor that generates a GeneratedInjector named 
+ * &lt;Class&gt;$$HypoInjector for every class declaring fields or simple setter methods 
+ * annotated with net.sourceforge.hypo.annotation.Dependency. The generated injector lists 
+ * the same Dependencies that AnnotationInjectionStrategy would find by reflection, but 
+ * writes fields and calls setters directly. 
+ * 
+ * A class is skipped (and left to reflection at runtime) if the generated injector 
+ * would not be able to access it or one of its annotated members, e.g. because it is 
+ * private or a local or anonymous class, or if one of its annotated fields is final and
+ * so could not be assigned directly.
+ */
+@SupportedAnnotationTypes( "net.sourceforge.hypo.annotation.Dependency" )
+public class InjectorProcessor extends AbstractProcessor
+{
+   private static final String DEPENDENCY = "net.sourceforge.hypo.inject.dependency.Dependency";
+   private static final String GENERATED_DEPENDENCY = "net.sourceforge.hypo.inject.dependency.GeneratedDependency";
+   private static final String LAZY_DEPENDENCY = "net.sourceforge.hypo.inject.dependency.LazyDependency";
+   
+   @Override
+   public SourceVersion getSupportedSourceVersion()
+   {
+      return SourceVersion.latestSupported();
+   }
+   
+   @Override
+   public boolean process( Set<? extends TypeElement> annotations, RoundEnvironment roundEnv )
+   {
+      Map<TypeElement, List<Element>> membersByClass = new LinkedHashMap<TypeElement, List<Element>>();
+      for ( Element element: roundEnv.getElementsAnnotatedWith( Dependency.class ) )
+      {
+         if ( !isEligible( element ) )
+            continue;
+         TypeElement clazz = (TypeElement) element.getEnclosingElement();
+         List<Element> members = membersByClass.get( clazz );
+         if ( members == null )
+         {
+            members = new ArrayList<Element>();
+            membersByClass.put( clazz, members );
+         }
+         members.add( element );
+      }
+      
+      for ( Map.Entry<TypeElement, List<Element>> entry: membersByClass.entrySet() )
+      {
+         TypeElement clazz = entry.getKey();
+         if ( isAccessible( clazz, entry.getValue() ) )
+            generateInjector( clazz, entry.getValue() );
+         else
+            processingEnv.getMessager().printMessage( Diagnostic.Kind.NOTE, 
+               "No injector generated for " + clazz + " as it or one of its dependencies is not accessible from its package, or is a final field", clazz );
+      }
+      return false;
+   }
+   
+   /**
+    * Mirrors AnnotationInjectionStrategy: any annotated field, and any annotated 
+    * method whose name starts with "set" and which takes exactly one parameter
+    */
+   private boolean isEligible( Element element )
+   {
+      if ( element.getKind() == ElementKind.FIELD )
+         return true;
+      if ( element.getKind() == ElementKind.METHOD )
+      {
+         ExecutableElement method = (ExecutableElement) element;
+         return method.getSimpleName().toString().startsWith( "set" ) && method.getParameters().size() == 1;
+      }
+      return false;
+   }
+   
+   private boolean isAccessible( TypeElement clazz, List<Element> members )
+   {
+      for ( Element member: members )
+      {
+         if ( member.getModifiers().contains( Modifier.PRIVATE ) )
+            return false;
+         // "receiver.field = value" would not compile; reflection can still set it
+         if ( member.getKind() == ElementKind.FIELD && member.getModifiers().contains( Modifier.FINAL ) )
+            return false;
+      }
+      Element element = clazz;
+      while ( element instanceof TypeElement )
+      {
+         TypeElement type = (TypeElement) element;
+         if ( type.getModifiers().contains( Modifier.PRIVATE ) || 
+              type.getNestingKind() == NestingKind.LOCAL || 
+              type.getNestingKind() == NestingKind.ANONYMOUS )
+            return false;
+         element = type.getEnclosingElement();
+      }
+      return true;
+   }
+   
+   private void generateInjector( TypeElement clazz, List<Element> members )
+   {
+      PackageElement pkg = processingEnv.getElementUtils().getPackageOf( clazz );
+      String binaryName = processingEnv.getElementUtils().getBinaryName( clazz ).toString();
+      String injectorName = binaryName + GeneratedInjector.CLASS_NAME_SUFFIX;
+      String simpleName = pkg.isUnnamed() ? injectorName : injectorName.substring( pkg.getQualifiedName().length() + 1 );
+      String className = processingEnv.getTypeUtils().erasure( clazz.asType() ).toString();
+      
+      // Reflection lists methods before fields, so the generated injector does the same
+      List<Element> ordered = new ArrayList<Element>();
+      for ( Element member: members )
+         if ( member.getKind() == ElementKind.METHOD )
+            ordered.add( member );
+      for ( Element member: members )
+         if ( member.getKind() == ElementKind.FIELD )
+            ordered.add( member );
+      
+      StringBuilder src = new StringBuilder();
+      if ( !pkg.isUnnamed() )
+         src.append( "package " ).append( pkg.getQualifiedName() ).append( ";\n\n" );
+      src.append( "/**\n * Generated by " ).append( InjectorProcessor.class.getName() ).append( " for " ).append( className ).append( ". Do not edit.\n */\n" );
+      src.append( "@SuppressWarnings( { \"unchecked\", \"rawtypes\" } )\n" );
+      src.append( "public final class " ).append( simpleName ).append( " implements " ).append( GeneratedInjector.class.getName() ).append( "\n{\n" );
+      src.append( "   public java.util.List<" ).append( DEPENDENCY ).append( "> createDependencies()\n   {\n" );
+      src.append( "      java.util.List<" ).append( DEPENDENCY ).append( "> list = new java.util.ArrayList<" ).append( DEPENDENCY ).append( ">( " ).append( ordered.size() ).append( " );\n" );
+      for ( Element member: ordered )
+      {
+         boolean setter = member.getKind() == ElementKind.METHOD;
+         TypeMirror memberType = setter ? ( (ExecutableElement) member ).getParameters().get( 0 ).asType() : member.asType();
+         String typeName = processingEnv.getTypeUtils().erasure( memberType ).toString();
+         String castName = memberType.getKind().isPrimitive() ? 
+            processingEnv.getTypeUtils().boxedClass( (PrimitiveType) memberType ).getQualifiedName().toString() : typeName;
+         String memberName = member.getSimpleName().toString();
+         boolean isStatic = member.getModifiers().contains( Modifier.STATIC );
+         String receiver = isStatic ? className : "( (" + className + ") targetObject )";
+         Dependency annotation = member.getAnnotation( Dependency.class );
+         
+         src.append( "      list.add( " );
+         if ( annotation.lazy() )
+            src.append( "new " ).append( LAZY_DEPENDENCY ).append( "( " );
+         src.append( "new " ).append( GENERATED_DEPENDENCY ).append( "( " ).append( className ).append( ".class, \"" )
+            .append( memberName ).append( "\", " ).append( typeName ).append( ".class, " ).append( setter ).append( ", " )
+            .append( toLiteral( annotation.value() ) ).append( " )\n      {\n" );
+         src.append( "         protected void setValue( Object targetObject, Object toInject )\n         {\n" );
+         if ( memberType.getKind().isPrimitive() )
+         {
+            // Fail as FieldDependency and SimpleSetterDependency do, rather than with a bare NullPointerException
+            src.append( "            if ( toInject == null )\n" );
+            src.append( "               throw new RuntimeException( \"" ).append( setter ? "Failed to inject via setter method " : "Failed to inject instance field " )
+               .append( "\" + getMember(), new NullPointerException( \"Cannot inject null into primitive " ).append( typeName ).append( "\" ) );\n" );
+         }
+         if ( setter )
+            src.append( "            " ).append( receiver ).append( "." ).append( memberName ).append( "( (" ).append( castName ).append( ") toInject );\n" );
+         else
+            src.append( "            " ).append( receiver ).append( "." ).append( memberName ).append( " = (" ).append( castName ).append( ") toInject;\n" );
+         src.append( "         }\n      }" ).append( annotation.lazy() ? " ) );\n" : " );\n" );
+      }
+      src.append( "      return list;\n   }\n}\n" );
+      
+      try
+      {
+         JavaFileObject file = processingEnv.getFiler().createSourceFile( injectorName, clazz );
+         Writer writer = file.openWriter();
+         try
+         {
+            writer.write( src.toString() );
+         }
+         finally
+         {
+            writer.close();
+         }
+      }
+      catch( IOException e )
+      {
+         processingEnv.getMessager().printMessage( Diagnostic.Kind.ERROR, "Could not generate injector " + injectorName + ": " + e, clazz );
+      }
+   }
+   
+   private static String toLiteral( String str )
+   {
+      StringBuilder buff = new StringBuilder( "\"" );
+      for ( char c: str.toCharArray() )
+      {
+         switch ( c )
+         {
+            case '"': buff.append( "\\\"" ); break;
+            case '\\': buff.append( "\\\\" ); break;
+            case '\n': buff.append( "\\n" ); break;
+            case '\r': buff.append( "\\r" ); break;
+            case '\t': buff.append( "\\t" ); break;
+            default: 
+               if ( c < 0x20 || c > 0x7e )
+                  buff.append( String.format( "\\u%04x", (int) c ) );
+               else
+                  buff.append( c );
+         }
+      }
+      return buff.append( '"' ).toString();
+   }
+}